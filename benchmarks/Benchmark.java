@@ -0,0 +1,134 @@
+/*
+ * Benchmark.java
+ *
+ * Minimal benchmark harness for the assignments, in the spirit of JMH:
+ * every benchmark is a batch of operations that is first run for a warmup
+ * period and then for a number of timed iterations, and the score is the
+ * mean time per operation over the iterations with its standard deviation.
+ *
+ * Settings are read from system properties:
+ *   bench.warmup      warmup time in ms (default 1000)
+ *   bench.time        time per iteration in ms (default 1000)
+ *   bench.iterations  number of timed iterations (default 5)
+ *
+ */
+
+public class Benchmark {
+
+  private static final long WARMUP_MS = Long.getLong("bench.warmup", 1000);
+  private static final long ITERATION_MS = Long.getLong("bench.time", 1000);
+  private static final int ITERATIONS = Integer.getInteger("bench.iterations",
+      5);
+
+  // results are folded in here so the JIT cannot drop the work
+  private static volatile long sink;
+
+  private static String[] filter = new String[0];
+
+  /**
+   * A batch of operations, run over and over again by the harness.
+   */
+  public interface Batch {
+    /**
+     * Runs the batch once.
+     *
+     * @return the number of operations performed
+     */
+    long run();
+  }
+
+  /**
+   * Runs only the benchmarks whose names contain one of the given strings;
+   * no strings selects all benchmarks.
+   *
+   * @param names
+   *          parts of benchmark names
+   */
+  public static void select(String[] names) {
+    filter = names.clone();
+  }
+
+  /**
+   * Is the benchmark with the given name selected?
+   *
+   * @param name
+   *          the benchmark name
+   * @return <tt>true</tt> if the benchmark should run
+   */
+  public static boolean selected(String name) {
+    if (filter.length == 0)
+      return true;
+    for (String f : filter)
+      if (name.contains(f))
+        return true;
+    return false;
+  }
+
+  /**
+   * Keeps a result alive.
+   *
+   * @param value
+   *          any result of the benchmarked code
+   */
+  public static void consume(long value) {
+    sink += value;
+  }
+
+  /**
+   * Keeps a result alive.
+   *
+   * @param o
+   *          any result of the benchmarked code, may be null
+   */
+  public static void consume(Object o) {
+    sink += (o == null) ? 0 : System.identityHashCode(o);
+  }
+
+  /**
+   * Prints the column header of the results.
+   */
+  public static void header() {
+    System.out.printf("%-48s %14s %12s  %s%n", "Benchmark", "Score", "Error",
+        "Units");
+  }
+
+  /**
+   * Warms up and measures a batch, and prints its score in ns/op if it is
+   * selected.
+   *
+   * @param name
+   *          the benchmark name
+   * @param batch
+   *          the operations to measure
+   */
+  public static void run(String name, Batch batch) {
+    if (!selected(name))
+      return;
+
+    long end = System.nanoTime() + WARMUP_MS * 1000000;
+    while (System.nanoTime() < end)
+      consume(batch.run());
+
+    double[] score = new double[ITERATIONS];
+    for (int it = 0; it < ITERATIONS; it++) {
+      long ops = 0;
+      long start = System.nanoTime();
+      long now = start;
+      end = start + ITERATION_MS * 1000000;
+      while (now < end) {
+        ops += batch.run();
+        now = System.nanoTime();
+      }
+      score[it] = (now - start) / (double) ops;
+    }
+
+    double mean = 0;
+    for (double s : score)
+      mean += s / ITERATIONS;
+    double var = 0;
+    for (double s : score)
+      var += (s - mean) * (s - mean);
+    double stddev = ITERATIONS > 1 ? Math.sqrt(var / (ITERATIONS - 1)) : 0;
+    System.out.printf("%-48s %14.3f %12.3f  ns/op%n", name, mean, stddev);
+  }
+}
@@ -0,0 +1,413 @@
+/*
+ * Benchmarks.java
+ *
+ * Baseline benchmarks of the hot paths of every assignment, run with the
+ * Benchmark harness:
+ *
+ *   percolation  Percolation.open and openAll, PercolationStats trials
+ *   deque        Deque, RingDeque, IntDeque, RandomizedQueue and
+ *                WeightedRandomizedQueue operations and iteration
+ *   contention   concurrent deques under one owner and many thieves, see
+ *                DequeContention, and randomized queues under many
+ *                producers and consumers, see RandomizedQueueContention
+ *   colinear     FastCollinearPoints on random points with planted lines
+ *   8puzzle      Solver on fixed scrambled 3x3 and 4x4 boards
+ *   kdtrees      KdTree insert, range and nearest
+ *
+ * All inputs are generated from fixed seeds, so runs are comparable.
+ *
+ * Execution: benchmarks/run.sh [name ...], where a name selects the
+ * benchmarks that contain it, e.g. "Deque" or "KdTree.range".
+ *
+ */
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+import edu.princeton.cs.algs4.StdRandom;
+
+public class Benchmarks {
+
+  private static final long SEED = 20160205L;
+
+  // sites of an N-by-N grid in a fixed random order, as rows and columns
+  private static int[][] siteOrder(int N) {
+    int[] sites = new int[N * N];
+    for (int p = 0; p < sites.length; p++)
+      sites[p] = p;
+    Random rnd = new Random(SEED);
+    for (int i = sites.length - 1; i > 0; i--) {
+      int r = rnd.nextInt(i + 1);
+      int t = sites[i];
+      sites[i] = sites[r];
+      sites[r] = t;
+    }
+    int[][] order = new int[3][sites.length];
+    for (int k = 0; k < sites.length; k++) {
+      order[0][k] = sites[k] / N + 1;
+      order[1][k] = sites[k] % N + 1;
+      order[2][k] = sites[k];
+    }
+    return order;
+  }
+
+  private static void percolation() {
+    final int N = 512;
+    final int[][] order = siteOrder(N);
+    final Percolation perc = new Percolation(N);
+
+    Benchmark.run("Percolation.open (N=512, until percolates)", () -> {
+      perc.reset();
+      int k = 0;
+      while (!perc.percolates()) {
+        perc.open(order[0][k], order[1][k]);
+        k++;
+      }
+      return k;
+    });
+
+    final int[] batch = java.util.Arrays.copyOf(order[2], (int) (0.6 * N * N));
+    Benchmark.run("Percolation.openAll (N=512, 60% of sites)", () -> {
+      perc.reset();
+      perc.openAll(batch);
+      Benchmark.consume(perc.percolates() ? 1 : 0);
+      return batch.length;
+    });
+
+    final long[] seed = { SEED };
+    Benchmark.run("PercolationStats (N=128, per trial)", () -> {
+      PercolationStats ps = new PercolationStats(128, 16, seed[0]++, 1);
+      Benchmark.consume(Double.doubleToLongBits(ps.mean()));
+      return ps.trials();
+    });
+  }
+
+  private static void deque() {
+    final int n = 100000;
+    final Integer[] items = new Integer[n];
+    for (int i = 0; i < n; i++)
+      items[i] = i;
+
+    Benchmark.run("Deque.addLast+removeFirst (queue)", () -> {
+      Deque<Integer> d = new Deque<Integer>();
+      for (int i = 0; i < n; i++)
+        d.addLast(items[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    Benchmark.run("Deque.addFirst+removeFirst (stack)", () -> {
+      Deque<Integer> d = new Deque<Integer>();
+      for (int i = 0; i < n; i++)
+        d.addFirst(items[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    final Deque<Integer> full = new Deque<Integer>();
+    for (int i = 0; i < n; i++)
+      full.addLast(items[i]);
+    Benchmark.run("Deque.iterator", () -> {
+      long sum = 0;
+      for (Integer i : full)
+        sum += i;
+      Benchmark.consume(sum);
+      return n;
+    });
+
+    Benchmark.run("RingDeque.addLast+removeFirst (queue)", () -> {
+      RingDeque<Integer> d = new RingDeque<Integer>();
+      for (int i = 0; i < n; i++)
+        d.addLast(items[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    Benchmark.run("RingDeque.addFirst+removeFirst (stack)", () -> {
+      RingDeque<Integer> d = new RingDeque<Integer>();
+      for (int i = 0; i < n; i++)
+        d.addFirst(items[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    // a queue that stays at about 1000 items, the work buffer case
+    final RingDeque<Integer> ring = new RingDeque<Integer>();
+    final Deque<Integer> list = new Deque<Integer>();
+    for (int i = 0; i < 1000; i++) {
+      ring.addLast(items[i]);
+      list.addLast(items[i]);
+    }
+    Benchmark.run("Deque.steady (1000 items)", () -> {
+      long sum = 0;
+      for (int i = 0; i < n; i++) {
+        list.addLast(items[i]);
+        sum += list.removeFirst();
+      }
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+    Benchmark.run("RingDeque.steady (1000 items)", () -> {
+      long sum = 0;
+      for (int i = 0; i < n; i++) {
+        ring.addLast(items[i]);
+        sum += ring.removeFirst();
+      }
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    final RingDeque<Integer> fullRing = new RingDeque<Integer>();
+    for (int i = 0; i < n; i++)
+      fullRing.addLast(items[i]);
+    Benchmark.run("RingDeque.iterator", () -> {
+      long sum = 0;
+      for (Integer i : fullRing)
+        sum += i;
+      Benchmark.consume(sum);
+      return n;
+    });
+
+    // int task ids that are boxed on the way in, against a primitive deque
+    Benchmark.run("Deque<Integer>.addLast+removeFirst (boxing)", () -> {
+      Deque<Integer> d = new Deque<Integer>();
+      for (int i = 0; i < n; i++)
+        d.addLast(i + 1000);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+    Benchmark.run("IntDeque.addLast+removeFirst", () -> {
+      IntDeque d = new IntDeque();
+      for (int i = 0; i < n; i++)
+        d.addLast(i + 1000);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += d.removeFirst();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    StdRandom.setSeed(SEED);
+    Benchmark.run("RandomizedQueue.enqueue+dequeue", () -> {
+      RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+      for (int i = 0; i < n; i++)
+        q.enqueue(items[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += q.dequeue();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    final RandomizedQueue<Integer> rq = new RandomizedQueue<Integer>();
+    for (int i = 0; i < n; i++)
+      rq.enqueue(items[i]);
+    Benchmark.run("RandomizedQueue.sample", () -> {
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += rq.sample();
+      Benchmark.consume(sum);
+      return n;
+    });
+
+    final double[] weights = new double[n];
+    Random rnd = new Random(SEED);
+    for (int i = 0; i < n; i++)
+      weights[i] = 1 + rnd.nextInt(100);
+    Benchmark.run("WeightedRandomizedQueue.enqueue+dequeue", () -> {
+      WeightedRandomizedQueue<Integer> q =
+          new WeightedRandomizedQueue<Integer>();
+      for (int i = 0; i < n; i++)
+        q.enqueue(items[i], weights[i]);
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += q.dequeue();
+      Benchmark.consume(sum);
+      return 2L * n;
+    });
+
+    final WeightedRandomizedQueue<Integer> wq =
+        new WeightedRandomizedQueue<Integer>();
+    for (int i = 0; i < n; i++)
+      wq.enqueue(items[i], weights[i]);
+    Benchmark.run("WeightedRandomizedQueue.sample", () -> {
+      long sum = 0;
+      for (int i = 0; i < n; i++)
+        sum += wq.sample();
+      Benchmark.consume(sum);
+      return n;
+    });
+    Benchmark.run("WeightedRandomizedQueue.setWeight", () -> {
+      for (int i = 0; i < n; i++)
+        wq.setWeight(items[i], weights[n - 1 - i]);
+      return n;
+    });
+
+    Benchmark.run("RandomizedQueue.iterator", () -> {
+      long sum = 0;
+      for (Iterator<Integer> it = rq.iterator(); it.hasNext();)
+        sum += it.next();
+      Benchmark.consume(sum);
+      return n;
+    });
+
+    Benchmark.run("RandomizedQueue.iterator (first 10 items)", () -> {
+      long sum = 0;
+      Iterator<Integer> it = rq.iterator();
+      for (int i = 0; i < 10; i++)
+        sum += it.next();
+      Benchmark.consume(sum);
+      return 10;
+    });
+  }
+
+  private static void colinear() {
+    // random points plus 20 planted lines of 5 points
+    Random rnd = new Random(SEED);
+    Set<Long> seen = new HashSet<Long>();
+    Point[] points = new Point[1100];
+    int n = 0;
+    for (int l = 0; l < 20; l++) {
+      int x = rnd.nextInt(16000);
+      int y = rnd.nextInt(16000);
+      int dx = 1 + rnd.nextInt(400);
+      int dy = rnd.nextInt(801) - 400;
+      for (int k = 0; k < 5; k++)
+        n = addPoint(points, n, seen, x + k * dx, 16000 + y + k * dy);
+    }
+    while (n < points.length)
+      n = addPoint(points, n, seen, rnd.nextInt(32768), rnd.nextInt(32768));
+    final Point[] input = java.util.Arrays.copyOf(points, n);
+
+    Benchmark.run("FastCollinearPoints (1100 points)", () -> {
+      Benchmark.consume(new FastCollinearPoints(input).numberOfSegments());
+      return 1;
+    });
+  }
+
+  // add point (x, y) unless it is already there
+  private static int addPoint(Point[] points, int n, Set<Long> seen, int x,
+      int y) {
+    if (n < points.length && seen.add(((long) x << 32) | y))
+      points[n++] = new Point(x, y);
+    return n;
+  }
+
+  // board reached from the goal by a random walk of the blank
+  private static Board scramble(int N, int moves, Random rnd) {
+    int[][] b = new int[N][N];
+    for (int i = 0; i < N * N - 1; i++)
+      b[i / N][i % N] = i + 1;
+    int r = N - 1;
+    int c = N - 1;
+    int last = -1;
+    int[] dr = { -1, 1, 0, 0 };
+    int[] dc = { 0, 0, -1, 1 };
+    for (int m = 0; m < moves;) {
+      int d = rnd.nextInt(4);
+      int nr = r + dr[d];
+      int nc = c + dc[d];
+      // stay on the board and do not undo the previous move
+      if (nr < 0 || nr >= N || nc < 0 || nc >= N || (d ^ 1) == last)
+        continue;
+      b[r][c] = b[nr][nc];
+      b[nr][nc] = 0;
+      r = nr;
+      c = nc;
+      last = d;
+      m++;
+    }
+    return new Board(b);
+  }
+
+  private static void puzzle() {
+    Random rnd = new Random(SEED);
+    final Board[] small = new Board[10];
+    for (int i = 0; i < small.length; i++)
+      small[i] = scramble(3, 60, rnd);
+    final Board[] large = new Board[10];
+    for (int i = 0; i < large.length; i++)
+      large[i] = scramble(4, 30, rnd);
+
+    Benchmark.run("Solver (3x3, 60 random moves)", () -> {
+      for (Board b : small)
+        Benchmark.consume(new Solver(b).moves());
+      return small.length;
+    });
+    Benchmark.run("Solver (4x4, 30 random moves)", () -> {
+      for (Board b : large)
+        Benchmark.consume(new Solver(b).moves());
+      return large.length;
+    });
+  }
+
+  private static void kdtrees() {
+    final int n = 100000;
+    Random rnd = new Random(SEED);
+    final Point2D[] points = new Point2D[n];
+    for (int i = 0; i < n; i++)
+      points[i] = new Point2D(rnd.nextDouble(), rnd.nextDouble());
+    final Point2D[] queries = new Point2D[1000];
+    final RectHV[] rects = new RectHV[queries.length];
+    for (int i = 0; i < queries.length; i++) {
+      queries[i] = new Point2D(rnd.nextDouble(), rnd.nextDouble());
+      double x = rnd.nextDouble() * 0.99;
+      double y = rnd.nextDouble() * 0.99;
+      rects[i] = new RectHV(x, y, x + 0.01, y + 0.01);
+    }
+
+    Benchmark.run("KdTree.insert (100k points)", () -> {
+      KdTree t = new KdTree();
+      for (Point2D p : points)
+        t.insert(p);
+      Benchmark.consume(t.size());
+      return n;
+    });
+
+    final KdTree tree = new KdTree();
+    for (Point2D p : points)
+      tree.insert(p);
+    Benchmark.run("KdTree.range (100k points, 1% squares)", () -> {
+      for (RectHV r : rects)
+        for (Point2D p : tree.range(r))
+          Benchmark.consume(p);
+      return rects.length;
+    });
+    Benchmark.run("KdTree.nearest (100k points)", () -> {
+      for (Point2D q : queries)
+        Benchmark.consume(tree.nearest(q));
+      return queries.length;
+    });
+  }
+
+  public static void main(String[] args) {
+    Benchmark.select(args);
+    Benchmark.header();
+    percolation();
+    deque();
+    DequeContention.run();
+    RandomizedQueueContention.run();
+    colinear();
+    puzzle();
+    kdtrees();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * DequeContention.java
+ *
+ * Producer/consumer contention benchmark of the concurrent deques. One
+ * owner thread adds items at the end of a deque and takes every other one
+ * back from the end, while the other threads take items from the front
+ * until the owner has drained the rest. The score is the time per item
+ * that passes through the deque, for
+ *
+ *   WorkStealingDeque       Chase-Lev, lock-free
+ *   ConcurrentLinkedDeque   java.util.concurrent, lock-free linked list
+ *   synchronized Deque      the Deque assignment behind one lock
+ *
+ * at 1, 2, 4, 8, 16 and 32 threads.
+ *
+ */
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DequeContention {
+
+  private static final int ITEMS = 1 << 18;
+  private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+
+  // the deque operations of the benchmark; poll returns null when empty
+  private interface Ops {
+    void addLast(Integer item);
+    Integer pollLast();
+    Integer pollFirst();
+  }
+
+  private static Ops workStealing() {
+    final WorkStealingDeque<Integer> d = new WorkStealingDeque<Integer>();
+    return new Ops() {
+      public void addLast(Integer item) {
+        d.addLast(item);
+      }
+
+      public Integer pollLast() {
+        return d.pollLast();
+      }
+
+      public Integer pollFirst() {
+        return d.pollFirst();
+      }
+    };
+  }
+
+  private static Ops concurrentLinked() {
+    final ConcurrentLinkedDeque<Integer> d =
+        new ConcurrentLinkedDeque<Integer>();
+    return new Ops() {
+      public void addLast(Integer item) {
+        d.addLast(item);
+      }
+
+      public Integer pollLast() {
+        return d.pollLast();
+      }
+
+      public Integer pollFirst() {
+        return d.pollFirst();
+      }
+    };
+  }
+
+  private static Ops synchronizedDeque() {
+    final Deque<Integer> d = new Deque<Integer>();
+    return new Ops() {
+      public synchronized void addLast(Integer item) {
+        d.addLast(item);
+      }
+
+      public synchronized Integer pollLast() {
+        return d.isEmpty() ? null : d.removeLast();
+      }
+
+      public synchronized Integer pollFirst() {
+        return d.isEmpty() ? null : d.removeFirst();
+      }
+    };
+  }
+
+  // one run of the producer/consumer pattern, returns the items passed
+  private static long run(final Ops d, int threads, final Integer[] items) {
+    final AtomicBoolean done = new AtomicBoolean();
+    final long[] taken = new long[threads];
+    Thread[] thieves = new Thread[threads - 1];
+    for (int k = 0; k < thieves.length; k++) {
+      final int id = k + 1;
+      thieves[k] = new Thread(() -> {
+        long n = 0;
+        while (true) {
+          if (d.pollFirst() != null)
+            n++;
+          else if (done.get())
+            break;
+        }
+        taken[id] = n;
+      });
+      thieves[k].start();
+    }
+
+    long n = 0;
+    for (int i = 0; i < items.length; i++) {
+      d.addLast(items[i]);
+      if ((i & 1) == 0 && d.pollLast() != null)
+        n++;
+    }
+    while (d.pollLast() != null)
+      n++;
+    done.set(true);
+    taken[0] = n;
+
+    long total = 0;
+    try {
+      for (Thread th : thieves)
+        th.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new java.lang.IllegalStateException("interrupted", e);
+    }
+    for (long t : taken)
+      total += t;
+    if (total != items.length)
+      throw new java.lang.IllegalStateException(total + " items taken");
+    return total;
+  }
+
+  /**
+   * Runs the contention benchmarks through the Benchmark harness.
+   */
+  public static void run() {
+    final Integer[] items = new Integer[ITEMS];
+    for (int i = 0; i < ITEMS; i++)
+      items[i] = i;
+
+    for (final int t : THREADS) {
+      Benchmark.run("Contention.WorkStealingDeque (" + t + " threads)",
+          () -> run(workStealing(), t, items));
+      Benchmark.run("Contention.ConcurrentLinkedDeque (" + t + " threads)",
+          () -> run(concurrentLinked(), t, items));
+      Benchmark.run("Contention.synchronized Deque (" + t + " threads)",
+          () -> run(synchronizedDeque(), t, items));
+    }
+  }
+}
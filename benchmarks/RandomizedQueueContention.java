@@ -0,0 +1,106 @@
+/*
+ * RandomizedQueueContention.java
+ *
+ * Random dispatch benchmark of the randomized queues. Every thread adds its
+ * share of the items and takes a random item back after every second one,
+ * then drains the queue until it finds it empty. The score is the time per
+ * item that passes through the queue, for
+ *
+ *   ConcurrentRandomizedQueue   striped, one lock per stripe
+ *   synchronized RandomizedQueue  the RandomizedQueue assignment behind
+ *                                 one lock
+ *
+ * at 1, 2, 4, 8, 16 and 32 threads.
+ *
+ */
+
+public class RandomizedQueueContention {
+
+  private static final int ITEMS = 1 << 18;
+  private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+
+  // the queue operations of the benchmark; poll returns null when empty
+  private interface Ops {
+    void enqueue(Integer item);
+    Integer poll();
+  }
+
+  private static Ops striped() {
+    final ConcurrentRandomizedQueue<Integer> q =
+        new ConcurrentRandomizedQueue<Integer>();
+    return new Ops() {
+      public void enqueue(Integer item) {
+        q.enqueue(item);
+      }
+
+      public Integer poll() {
+        return q.poll();
+      }
+    };
+  }
+
+  private static Ops synchronizedQueue() {
+    final RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+    return new Ops() {
+      public synchronized void enqueue(Integer item) {
+        q.enqueue(item);
+      }
+
+      public synchronized Integer poll() {
+        return q.isEmpty() ? null : q.dequeue();
+      }
+    };
+  }
+
+  // one run of the dispatch pattern, returns the items passed
+  private static long run(final Ops q, int threads, final Integer[] items) {
+    final long[] taken = new long[threads];
+    Thread[] workers = new Thread[threads];
+    for (int k = 0; k < threads; k++) {
+      final int id = k;
+      final int step = threads;
+      workers[k] = new Thread(() -> {
+        long n = 0;
+        for (int i = id; i < items.length; i += step) {
+          q.enqueue(items[i]);
+          if ((i & 1) == 1 && q.poll() != null)
+            n++;
+        }
+        while (q.poll() != null)
+          n++;
+        taken[id] = n;
+      });
+      workers[k].start();
+    }
+
+    try {
+      for (Thread th : workers)
+        th.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new java.lang.IllegalStateException("interrupted", e);
+    }
+    long total = 0;
+    for (long t : taken)
+      total += t;
+    if (total != items.length)
+      throw new java.lang.IllegalStateException(total + " items taken");
+    return total;
+  }
+
+  /**
+   * Runs the contention benchmarks through the Benchmark harness.
+   */
+  public static void run() {
+    final Integer[] items = new Integer[ITEMS];
+    for (int i = 0; i < ITEMS; i++)
+      items[i] = i;
+
+    for (final int t : THREADS) {
+      Benchmark.run("Contention.ConcurrentRandomizedQueue (" + t
+          + " threads)", () -> run(striped(), t, items));
+      Benchmark.run("Contention.synchronized RandomizedQueue (" + t
+          + " threads)", () -> run(synchronizedQueue(), t, items));
+    }
+  }
+}
@@ -0,0 +1,10 @@
+#!/bin/sh
+# Compiles all assignments together with the benchmarks and runs them.
+# Arguments select benchmarks by name; JAVA_OPTS can set the bench.*
+# properties, e.g. JAVA_OPTS="-Dbench.iterations=10" benchmarks/run.sh Deque
+set -e
+cd "$(dirname "$0")/.."
+out="${BENCH_OUT:-${TMPDIR:-/tmp}/algorithms-benchmarks}"
+mkdir -p "$out"
+javac -nowarn -cp algs4.jar -d "$out" */*.java
+java $JAVA_OPTS -cp "$out:algs4.jar" Benchmarks "$@"
@@ -0,0 +1,134 @@
+/****************************************************************************
+ * 
+ * ByteTokenizer: whitespace separated tokens read byte by byte
+ *
+ ****************************************************************************/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>ByteTokenizer</tt> class splits an input stream into tokens
+ * separated by ASCII whitespace, like <tt>StdIn.readString</tt>. It reads
+ * the stream into a 64 KB buffer and scans bytes, and only builds a String
+ * (UTF-8) for tokens that are asked for. <tt>skip</tt> passes over tokens
+ * without creating anything, which a reservoir sampler uses to drop the
+ * tokens it would not look at anyway.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class ByteTokenizer {
+
+  private final InputStream in;   // the input
+  private final byte[] buf;       // bytes read but not yet scanned
+  private int pos;                // next byte in buf
+  private int end;                // end of the bytes in buf
+  private byte[] token;           // bytes of a token crossing buffer ends
+
+  /**
+   * Tokenizes the given stream.
+   *
+   * @param in the input stream
+   */
+  public ByteTokenizer(InputStream in) {
+    if (in == null)
+      throw new java.lang.NullPointerException();
+    this.in = in;
+    buf = new byte[1 << 16];
+    token = new byte[64];
+    pos = 0;
+    end = 0;
+  }
+
+  // refill the buffer, false at the end of the input
+  private boolean fill() {
+    try {
+      int n = in.read(buf, 0, buf.length);
+      while (n == 0)
+        n = in.read(buf, 0, buf.length);
+      pos = 0;
+      end = Math.max(n, 0);
+      return n > 0;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f'
+        || b == 0x0b;
+  }
+
+  /**
+   * Skips whitespace and tells whether another token follows.
+   *
+   * @return <tt>true</tt> if the input has another token
+   */
+  public boolean hasNext() {
+    while (true) {
+      while (pos < end && isSpace(buf[pos]))
+        pos++;
+      if (pos < end)
+        return true;
+      if (!fill())
+        return false;
+    }
+  }
+
+  /**
+   * Reads the next token.
+   *
+   * @return the token
+   * @throws java.util.NoSuchElementException if there are no more tokens
+   */
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException("End of input");
+    int start = pos;
+    while (pos < end && !isSpace(buf[pos]))
+      pos++;
+    if (pos < end)
+      return new String(buf, start, pos - start, StandardCharsets.UTF_8);
+
+    // the token runs into the next buffer, collect it in token
+    int n = 0;
+    while (true) {
+      int len = pos - start;
+      if (n + len > token.length)
+        token = java.util.Arrays.copyOf(token, Math.max(2 * token.length,
+            n + len));
+      System.arraycopy(buf, start, token, n, len);
+      n += len;
+      if (pos < end || !fill())
+        break;
+      start = 0;
+      while (pos < end && !isSpace(buf[pos]))
+        pos++;
+    }
+    return new String(token, 0, n, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Skips up to n tokens without reading them into Strings.
+   *
+   * @param n the number of tokens to skip
+   * @return the number of tokens skipped, less than n at the end of input
+   */
+  public long skip(long n) {
+    long skipped = 0;
+    while (skipped < n && hasNext()) {
+      // pass over the token, which may run into the next buffer
+      while (true) {
+        while (pos < end && !isSpace(buf[pos]))
+          pos++;
+        if (pos < end || !fill())
+          break;
+      }
+      skipped++;
+    }
+    return skipped;
+  }
+}
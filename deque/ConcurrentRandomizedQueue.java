@@ -0,0 +1,384 @@
+/****************************************************************************
+ *
+ * ConcurrentRandomizedQueue: striped concurrent randomized queue
+ *
+ ****************************************************************************/
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The <tt>ConcurrentRandomizedQueue</tt> class is a thread-safe
+ * <tt>RandomizedQueue</tt> for many producers and consumers. The items are
+ * split across a fixed number of stripes, each a resizing array behind its
+ * own lock. Every thread that enqueues is given a home stripe the first
+ * time it adds, round robin, and always adds there; as long as there are
+ * no more producers than stripes, no two producers share a lock. A
+ * dequeue starts at a random stripe and removes a random item of it; when
+ * that stripe is empty or busy it moves on to the next ones, stealing from
+ * whichever stripe has items. A consumer holds a stripe's lock for the
+ * removal of one item, so a producer can still briefly wait for a consumer
+ * on its home stripe, and for the iterator, which locks each stripe while
+ * it copies it. Random numbers come from <tt>ThreadLocalRandom</tt>
+ * instead of the shared <tt>StdRandom</tt>.
+ * <p>
+ * Picking a stripe first and then an item of it is uniform over the items
+ * only when the stripes hold the same number of items; with producers
+ * spread over the stripes this is close, but items of small stripes are
+ * somewhat more likely to be picked. Use <tt>RandomizedQueue</tt> when the
+ * exact distribution matters.
+ * <p>
+ * <tt>size</tt> and <tt>isEmpty</tt> sum the stripes without locking them
+ * and so may be stale under concurrent use. The iterator returns a random
+ * order of the items present when it was created.
+ *
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+  // one lock and resizing array of items; the items are kept as Objects
+  // and cast back to Item by the queue. n is only written under the lock,
+  // with lazySet: readers without the lock use it as a hint and check
+  // again under the lock, so the store needs no fence
+  private static final class Stripe {
+    static final AtomicIntegerFieldUpdater<Stripe> N =
+        AtomicIntegerFieldUpdater.newUpdater(Stripe.class, "n");
+
+    final ReentrantLock lock = new ReentrantLock();
+    Object[] a = new Object[2]; // array elements
+    volatile int n;             // number of elements
+
+    // resize the underlying array holding the elements
+    void resize(int capacity) {
+      Object[] temp = new Object[capacity];
+      for (int i = 0; i < n; i++)
+        temp[i] = a[i];
+      a = temp;
+    }
+
+    void add(Object item) {
+      if (n == a.length)
+        resize(2 * a.length);
+      a[n] = item;
+      N.lazySet(this, n + 1);
+    }
+
+    // remove a random item, the stripe must not be empty
+    Object take(ThreadLocalRandom rnd) {
+      int last = n - 1;
+      int index = rnd.nextInt(n);
+      Object item = a[index];
+      a[index] = a[last];
+      a[last] = null;
+      N.lazySet(this, last);
+      if (last > 0 && last == a.length / 4)
+        resize(a.length / 2);
+      return item;
+    }
+  }
+
+  private final Stripe[] stripes;         // power of two length
+  private final int mask;                 // stripes.length - 1
+  private final AtomicInteger registered; // producer threads seen so far
+  private final ThreadLocal<Stripe> home; // stripe of the current thread
+
+  /**
+   * Construct an empty queue with four stripes per available processor.
+   */
+  public ConcurrentRandomizedQueue() {
+    this(4 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Construct an empty queue with at least the given number of stripes,
+   * rounded up to a power of two. Producers only share a stripe when more
+   * threads have enqueued than there are stripes.
+   *
+   * @param concurrency
+   *          the expected number of threads that enqueue
+   * @throws java.lang.IllegalArgumentException
+   *           if concurrency is not in [1, 2^16]
+   */
+  public ConcurrentRandomizedQueue(int concurrency) {
+    if (concurrency < 1 || concurrency > 1 << 16)
+      throw new java.lang.IllegalArgumentException(
+          "concurrency must be in [1, 2^16]");
+    int m = Integer.highestOneBit(concurrency);
+    if (m < concurrency)
+      m *= 2;
+    stripes = new Stripe[m];
+    for (int i = 0; i < m; i++)
+      stripes[i] = new Stripe();
+    mask = m - 1;
+    registered = new AtomicInteger();
+    home = ThreadLocal.withInitial(() ->
+        stripes[registered.getAndIncrement() & mask]);
+  }
+
+  /**
+   * Is this queue empty? The answer may be stale as soon as it is returned
+   * when other threads use the queue.
+   *
+   * @return true if this queue is empty; false otherwise
+   */
+  public boolean isEmpty() {
+    for (Stripe s : stripes)
+      if (s.n > 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * Returns the number of items in this queue, summed over the stripes
+   * without locking them.
+   *
+   * @return the number of items in this queue
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe s : stripes)
+      size += s.n;
+    return size;
+  }
+
+  /**
+   * Adds the item to this queue.
+   *
+   * @param item
+   *          the item to add
+   * @throws java.lang.NullPointerException
+   *           if item is null
+   */
+  public void enqueue(Item item) {
+    if (item == null)
+      throw new java.lang.NullPointerException();
+    Stripe s = home.get();
+    s.lock.lock();
+    try {
+      s.add(item);
+    } finally {
+      s.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes and returns a random item on this queue, or returns null if it
+   * is empty. A stripe that another thread holds is passed over as long as
+   * a free stripe has items; the queue is reported empty only after every
+   * stripe was seen empty under its lock.
+   *
+   * @return a random item, or null if this queue is empty
+   */
+  public Item poll() {
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    int start = rnd.nextInt(stripes.length);
+
+    // first pass: take from the first free stripe with items
+    for (int k = 0; k <= mask; k++) {
+      Stripe s = stripes[(start + k) & mask];
+      if (s.n > 0 && s.lock.tryLock()) {
+        try {
+          if (s.n > 0) {
+            @SuppressWarnings("unchecked")
+            Item item = (Item) s.take(rnd);
+            return item;
+          }
+        } finally {
+          s.lock.unlock();
+        }
+      }
+    }
+
+    // second pass: wait for the busy stripes
+    for (int k = 0; k <= mask; k++) {
+      Stripe s = stripes[(start + k) & mask];
+      s.lock.lock();
+      try {
+        if (s.n > 0) {
+          @SuppressWarnings("unchecked")
+          Item item = (Item) s.take(rnd);
+          return item;
+        }
+      } finally {
+        s.lock.unlock();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes and returns a random item on this queue.
+   *
+   * @return a random item on this queue
+   * @throws java.util.NoSuchElementException
+   *           if this queue is empty
+   */
+  public Item dequeue() {
+    Item item = poll();
+    if (item == null)
+      throw new NoSuchElementException("Queue underflow");
+    return item;
+  }
+
+  /**
+   * Returns (but does not remove) a random item on this queue.
+   *
+   * @return a random item on this queue
+   * @throws java.util.NoSuchElementException
+   *           if this queue is empty
+   */
+  public Item sample() {
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    int start = rnd.nextInt(stripes.length);
+    for (int k = 0; k <= mask; k++) {
+      Stripe s = stripes[(start + k) & mask];
+      if (s.n == 0)
+        continue;
+      s.lock.lock();
+      try {
+        if (s.n > 0) {
+          @SuppressWarnings("unchecked")
+          Item item = (Item) s.a[rnd.nextInt(s.n)];
+          return item;
+        }
+      } finally {
+        s.lock.unlock();
+      }
+    }
+    throw new NoSuchElementException("Queue underflow");
+  }
+
+  /**
+   * Returns an iterator over a copy of the items, taken one stripe at a
+   * time, in random order.
+   *
+   * @return an iterator over the items in random order
+   */
+  public Iterator<Item> iterator() {
+    Object[] copy = new Object[size()];
+    int n = 0;
+    for (Stripe s : stripes) {
+      s.lock.lock();
+      try {
+        if (n + s.n > copy.length)
+          copy = java.util.Arrays.copyOf(copy, 2 * (n + s.n));
+        System.arraycopy(s.a, 0, copy, n, s.n);
+        n += s.n;
+      } finally {
+        s.lock.unlock();
+      }
+    }
+    return new SnapshotIterator(copy, n);
+  }
+
+  // an iterator, doesn't implement remove() since it's optional; it
+  // shuffles the copy one position at a time as items are returned
+  private class SnapshotIterator implements Iterator<Item> {
+    private final Object[] items;
+    private final int n;
+    private int i = 0;
+
+    SnapshotIterator(Object[] items, int n) {
+      this.items = items;
+      this.n = n;
+    }
+
+    public boolean hasNext() {
+      return i < n;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public Item next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      int r = i + ThreadLocalRandom.current().nextInt(n - i);
+      @SuppressWarnings("unchecked")
+      Item item = (Item) items[r];
+      items[r] = items[i];
+      items[i++] = item;
+      return item;
+    }
+  }
+
+  /**
+   * Unit tests the <tt>ConcurrentRandomizedQueue</tt> data type: producer
+   * threads enqueue the numbers 0 to n-1 while consumer threads dequeue
+   * them, and every number must come out exactly once.
+   *
+   * java ConcurrentRandomizedQueue [n] [producers] [consumers]
+   */
+  public static void main(String[] args) throws InterruptedException {
+    final int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    final int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    final int consumers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+    final ConcurrentRandomizedQueue<Integer> q =
+        new ConcurrentRandomizedQueue<Integer>();
+    final AtomicInteger[] taken = new AtomicInteger[n];
+    for (int i = 0; i < n; i++)
+      taken[i] = new AtomicInteger();
+    final AtomicInteger produced = new AtomicInteger();
+    final AtomicInteger consumed = new AtomicInteger();
+
+    Thread[] threads = new Thread[producers + consumers];
+    for (int k = 0; k < producers; k++) {
+      final int first = k;
+      threads[k] = new Thread(() -> {
+        for (int i = first; i < n; i += producers) {
+          q.enqueue(i);
+          produced.incrementAndGet();
+        }
+      });
+    }
+    for (int k = 0; k < consumers; k++) {
+      threads[producers + k] = new Thread(() -> {
+        while (true) {
+          Integer i = q.poll();
+          if (i != null) {
+            taken[i].incrementAndGet();
+            consumed.incrementAndGet();
+          } else if (produced.get() == n)
+            break;
+        }
+      });
+    }
+    for (Thread th : threads)
+      th.start();
+    for (Thread th : threads)
+      th.join();
+
+    // whatever the consumers left is still in the queue
+    int left = q.size();
+    for (Integer i : q)
+      taken[i].incrementAndGet();
+
+    int bad = 0;
+    for (int i = 0; i < n; i++)
+      if (taken[i].get() != 1)
+        bad++;
+    StdOut.println(n + " items, " + producers + " producers, " + consumers
+        + " consumers: " + consumed.get() + " dequeued, " + left
+        + " left, " + bad + " lost or duplicated");
+
+    // a small queue in random order
+    ConcurrentRandomizedQueue<String> s =
+        new ConcurrentRandomizedQueue<String>(2);
+    for (String str : "A B C D E F".split(" "))
+      s.enqueue(str);
+    StdOut.print("iterator:");
+    for (String str : s)
+      StdOut.print(" " + str);
+    StdOut.print("\ndequeue: ");
+    while (!s.isEmpty())
+      StdOut.print(" " + s.dequeue());
+    StdOut.println();
+  }
+}
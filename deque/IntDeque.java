@@ -0,0 +1,202 @@
+/****************************************************************************
+ * 
+ * IntDeque: ring buffer deque of primitive ints
+ *
+ ****************************************************************************/
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The <tt>IntDeque</tt> class has the API of <tt>Deque</tt> for
+ * <tt>int</tt> items. It is a <tt>RingDeque</tt> over an <tt>int[]</tt>, so
+ * items are never boxed. An item takes 4 bytes of the array, compared with
+ * a node and an <tt>Integer</tt> per item in <tt>Deque&lt;Integer&gt;</tt>.
+ * Iteration goes through a <tt>PrimitiveIterator.OfInt</tt> or
+ * <tt>forEach(IntConsumer)</tt>.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class IntDeque {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private int[] a;   // ring buffer, length is a power of two
+  private int head;  // index of the first item
+  private int N;     // number of elements on queue
+
+  /**
+   * Initializes an empty queue.
+   */
+  public IntDeque() {
+    a = new int[MIN_CAPACITY];
+    head = 0;
+    N = 0;
+  }
+
+  /**
+   * Returns true if this queue is empty.
+   *
+   * @return <tt>true</tt> if this queue is empty; <tt>false</tt> otherwise
+   */
+  public boolean isEmpty() {
+    return N == 0;
+  }
+
+  /**
+   * Returns the number of items in this queue.
+   *
+   * @return the number of items in this queue
+   */
+  public int size() {
+    return N;
+  }
+
+  // move the items to a new array of the given power of two capacity,
+  // unwrapped so that the first item is at index 0
+  private void resize(int capacity) {
+    assert capacity >= N && Integer.bitCount(capacity) == 1;
+    int[] temp = new int[capacity];
+    int first = Math.min(N, a.length - head);
+    System.arraycopy(a, head, temp, 0, first);
+    System.arraycopy(a, 0, temp, first, N - first);
+    a = temp;
+    head = 0;
+  }
+
+  // halve the array once it is a quarter full
+  private void shrink() {
+    if (a.length > MIN_CAPACITY && N == a.length / 4)
+      resize(a.length / 2);
+  }
+
+  /**
+   * Adds an item to the front of the queue
+   *
+   * @param item the item to add
+   */
+  public void addFirst(int item) {
+    if (N == a.length)
+      resize(2 * a.length);
+    head = (head - 1) & (a.length - 1);
+    a[head] = item;
+    N++;
+  }
+
+  /**
+   * Adds an item to the end of the queue
+   *
+   * @param item the item to add
+   */
+  public void addLast(int item) {
+    if (N == a.length)
+      resize(2 * a.length);
+    a[(head + N) & (a.length - 1)] = item;
+    N++;
+  }
+
+  /**
+   * Remove and return the item from the front
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return first item in queue
+   */
+  public int removeFirst() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+    int item = a[head];
+    head = (head + 1) & (a.length - 1);
+    N--;
+    shrink();
+    return item;
+  }
+
+  /**
+   * Remove and return the item from the end
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return last item in queue
+   */
+  public int removeLast() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+    int item = a[(head + N - 1) & (a.length - 1)];
+    N--;
+    shrink();
+    return item;
+  }
+
+  /**
+   * Performs the action for each item in FIFO order.
+   *
+   * @param action the action
+   */
+  public void forEach(IntConsumer action) {
+    int mask = a.length - 1;
+    for (int i = 0; i < N; i++)
+      action.accept(a[(head + i) & mask]);
+  }
+
+  /**
+   * Returns an iterator that iterates over the items in this queue in FIFO order.
+   * @return an iterator that iterates over the items in this queue in FIFO order
+   */
+  public PrimitiveIterator.OfInt iterator() {
+    return new RingIterator();
+  }
+
+  // an iterator, doesn't implement remove() since it's optional
+  private class RingIterator implements PrimitiveIterator.OfInt {
+    private int i = 0;
+
+    public boolean hasNext() {
+      return i < N;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public int nextInt() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return a[(head + i++) & (a.length - 1)];
+    }
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    // initialize a deque class
+    IntDeque q = new IntDeque();
+
+    q.addFirst(2);
+    q.addFirst(1);
+    q.addLast(3);
+    q.addLast(4);
+    q.removeFirst();
+    q.removeLast();
+
+    StdOut.println("(" + q.size() + " left on queue)");
+
+    // print using iterators
+    for (PrimitiveIterator.OfInt it = q.iterator(); it.hasNext();)
+      StdOut.println(it.nextInt());
+
+    // wrap around, grow and shrink again
+    IntDeque r = new IntDeque();
+    for (int i = 0; i < 100; i++) {
+      r.addFirst(-i);
+      r.addLast(i);
+    }
+    final long[] sum = { 0 };
+    r.forEach(x -> sum[0] += x);
+    while (r.size() > 2)
+      sum[0] += r.removeFirst() + r.removeLast();
+    StdOut.println("sum = " + sum[0] + ", " + r.size() + " left: "
+        + r.removeFirst() + " " + r.removeLast());
+  }
+}
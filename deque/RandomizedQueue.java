@@ -128,11 +128,93 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
   }
 
   // an iterator, doesn't implement remove() since it's optional
+  //
+  // The order is a Fisher-Yates shuffle of the indices [0, N) that is done
+  // lazily, one swap per item returned, and only the swapped positions are
+  // remembered. They are kept in a small open addressing table, which turns
+  // into a dense array once a sixteenth of the items have been returned.
+  // Taking k items costs O(k) time and memory, and the queue itself is
+  // never touched, so iterators are independent. The iterator sees the
+  // items of the queue when it was created and must not be used after the
+  // queue changes.
   private class RandomArrayIterator implements Iterator<Item> {
-    private int i = 0;
+    private final Item[] items = a;  // the items, in array order
+    private final int n = N;         // the number of items
+    private int[] keys;              // swapped positions, -1 if free
+    private int[] values;            // index now at keys[h]
+    private int used;                // number of keys in the table
+    private int[] dense;             // index + 1 at each position, 0 if
+                                     // unswapped, once the table is gone
+    private int i = 0;               // items returned so far
+
+    RandomArrayIterator() {
+      keys = new int[16];
+      values = new int[16];
+      java.util.Arrays.fill(keys, -1);
+      used = 0;
+    }
+
+    // table slot of position p, or of the free slot where it belongs
+    private int slot(int p) {
+      int m = keys.length - 1;
+      int h = (p * 0x9e3779b9) & m;
+      while (keys[h] != -1 && keys[h] != p)
+        h = (h + 1) & m;
+      return h;
+    }
+
+    // index at position p of the shuffled order
+    private int get(int p) {
+      if (dense != null)
+        return (dense[p] == 0) ? p : dense[p] - 1;
+      int h = slot(p);
+      return (keys[h] == -1) ? p : values[h];
+    }
+
+    // put index v at position p
+    private void put(int p, int v) {
+      if (dense != null) {
+        dense[p] = v + 1;
+        return;
+      }
+      int h = slot(p);
+      if (keys[h] == -1) {
+        keys[h] = p;
+        used++;
+      }
+      values[h] = v;
+
+      if (used > n / 16)
+        toDense();
+      else if (2 * used > keys.length)
+        rehash(2 * keys.length);
+    }
+
+    private void rehash(int capacity) {
+      int[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new int[capacity];
+      values = new int[capacity];
+      java.util.Arrays.fill(keys, -1);
+      for (int h = 0; h < oldKeys.length; h++)
+        if (oldKeys[h] != -1) {
+          int s = slot(oldKeys[h]);
+          keys[s] = oldKeys[h];
+          values[s] = oldValues[h];
+        }
+    }
+
+    private void toDense() {
+      dense = new int[n];
+      for (int h = 0; h < keys.length; h++)
+        if (keys[h] != -1)
+          dense[keys[h]] = values[h] + 1;
+      keys = null;
+      values = null;
+    }
 
     public boolean hasNext() {
-      return i < N;
+      return i < n;
     }
 
     public void remove() {
@@ -140,16 +222,16 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     }
 
     public Item next() {
-      // create a shuffle random index array
-      if (i == 0)
-        StdRandom.shuffle(a);
-
       if (!hasNext())
         throw new NoSuchElementException();
 
-      Item item = a[i % a.length];
+      // swap a random position of [i, n) to position i and return it
+      int r = i + StdRandom.uniform(n - i);
+      int index = get(r);
+      if (r != i)
+        put(r, get(i));
       i++;
-      return item;
+      return items[index];
     }
   }
 
@@ -0,0 +1,203 @@
+/****************************************************************************
+ * 
+ * ReservoirSampler: uniform sample of k items from a stream
+ *
+ ****************************************************************************/
+
+import java.util.Iterator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * The <tt>ReservoirSampler</tt> class keeps a uniformly random sample of k
+ * items from a stream of unknown length in O(k) memory. The sample is held
+ * in a <tt>RandomizedQueue</tt>. An item that enters a full reservoir
+ * replaces a uniformly random one, via <tt>dequeue</tt> followed by
+ * <tt>enqueue</tt>.
+ * <p>
+ * With <tt>Algorithm.R</tt> (Vitter) every item after the first k draws one
+ * random number and enters with probability k / (items seen). With
+ * <tt>Algorithm.L</tt> (Li, 1994) the sampler instead draws the number of
+ * items to pass over before the next one that enters, from a geometric
+ * distribution. That is O(k (1 + log(n / k))) random numbers for n items,
+ * and the items in between are not looked at. <tt>toSkip</tt> tells how
+ * many items the sampler will drop, so a caller can skip them unread
+ * with <tt>skip</tt>.
+ * <p>
+ * Randomness comes from <tt>StdRandom</tt>, so <tt>StdRandom.setSeed</tt>
+ * makes a sample reproducible.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class ReservoirSampler<Item> implements Iterable<Item> {
+
+  /**
+   * The sampling algorithm.
+   */
+  public enum Algorithm {
+    R,  // one random number per item
+    L   // geometric skips over the items that do not enter
+  }
+
+  private final int k;                   // size of the sample
+  private final Algorithm algorithm;     // how items are picked
+  private final RandomizedQueue<Item> q; // the reservoir
+  private long seen;                     // items offered so far
+  private long pending;                  // items L drops before the next
+  private double w;                      // Algorithm L state
+
+  /**
+   * Initializes an empty sampler of k items using Algorithm L.
+   *
+   * @param k the size of the sample
+   * @throws java.lang.IllegalArgumentException if k is negative
+   */
+  public ReservoirSampler(int k) {
+    this(k, Algorithm.L);
+  }
+
+  /**
+   * Initializes an empty sampler of k items.
+   *
+   * @param k the size of the sample
+   * @param algorithm the sampling algorithm
+   * @throws java.lang.IllegalArgumentException if k is negative
+   */
+  public ReservoirSampler(int k, Algorithm algorithm) {
+    if (k < 0)
+      throw new java.lang.IllegalArgumentException("k must be >= 0");
+    if (algorithm == null)
+      throw new java.lang.NullPointerException();
+    this.k = k;
+    this.algorithm = algorithm;
+    q = new RandomizedQueue<Item>();
+    seen = 0;
+    pending = 0;
+  }
+
+  // random number in (0, 1], safe to take the log of
+  private static double uniform() {
+    return 1.0 - StdRandom.uniform();
+  }
+
+  // Algorithm L: advance w and draw the number of items to drop
+  private void nextSkip() {
+    w *= Math.exp(Math.log(uniform()) / k);
+    double s = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+    pending = (s < Long.MAX_VALUE) ? (long) s : Long.MAX_VALUE;
+  }
+
+  // put an item into a full reservoir in place of a random one
+  private void replace(Item item) {
+    q.dequeue();
+    q.enqueue(item);
+  }
+
+  /**
+   * Offers the next item of the stream.
+   *
+   * @param item the item
+   * @throws java.lang.NullPointerException if item is null
+   */
+  public void add(Item item) {
+    if (item == null)
+      throw new java.lang.NullPointerException();
+    seen++;
+    if (k == 0)
+      return;
+
+    // fill the reservoir
+    if (q.size() < k) {
+      q.enqueue(item);
+      if (q.size() == k && algorithm == Algorithm.L) {
+        w = 1.0;
+        nextSkip();
+      }
+      return;
+    }
+
+    if (algorithm == Algorithm.R) {
+      if (StdRandom.uniform() * seen < k)
+        replace(item);
+    } else if (pending > 0)
+      pending--;
+    else {
+      replace(item);
+      nextSkip();
+    }
+  }
+
+  /**
+   * Returns the number of upcoming items the sampler will drop without
+   * looking at them; always 0 for Algorithm R and while filling up.
+   *
+   * @return the number of items that can be skipped
+   */
+  public long toSkip() {
+    return (k == 0) ? Long.MAX_VALUE : pending;
+  }
+
+  /**
+   * Counts n items of the stream as offered and dropped, as if
+   * <tt>add</tt> had been called for each of them.
+   *
+   * @param n the number of items skipped
+   * @throws java.lang.IllegalArgumentException if n is negative or more
+   *           than <tt>toSkip()</tt>
+   */
+  public void skip(long n) {
+    if (n < 0 || n > toSkip())
+      throw new java.lang.IllegalArgumentException("n exceeds toSkip()");
+    seen += n;
+    if (k > 0)
+      pending -= n;
+  }
+
+  /**
+   * Returns the number of items in the sample, min(k, items seen).
+   *
+   * @return the number of items in the sample
+   */
+  public int size() {
+    return q.size();
+  }
+
+  /**
+   * Returns the number of items offered so far, skipped items included.
+   *
+   * @return the length of the stream so far
+   */
+  public long count() {
+    return seen;
+  }
+
+  /**
+   * Returns an iterator over the sample in random order.
+   *
+   * @return an iterator over the sample
+   */
+  public Iterator<Item> iterator() {
+    return q.iterator();
+  }
+
+  // unit testing: frequencies of 0..9 in samples of 3 should all be close
+  // to 0.3
+  public static void main(String[] args) {
+    int trials = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    for (Algorithm alg : Algorithm.values()) {
+      int[] hits = new int[10];
+      for (int t = 0; t < trials; t++) {
+        ReservoirSampler<Integer> s = new ReservoirSampler<Integer>(3, alg);
+        for (int i = 0; i < hits.length; i++)
+          s.add(i);
+        for (int i : s)
+          hits[i]++;
+      }
+      StdOut.print(alg + ":");
+      for (int h : hits)
+        StdOut.printf(" %.3f", h / (double) trials);
+      StdOut.println();
+    }
+  }
+}
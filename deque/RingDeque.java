@@ -0,0 +1,205 @@
+/****************************************************************************
+ * 
+ * RingDeque: array ring buffer implementation of the Deque API
+ *
+ ****************************************************************************/
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The <tt>RingDeque</tt> class has the API of <tt>Deque</tt> but keeps the
+ * items in a circular array instead of a linked list. The capacity is a power
+ * of two, so an index wraps around with a mask instead of a branch or a
+ * remainder. The array doubles when it is full and halves when it is a
+ * quarter full. An add after a halving never grows the array again at
+ * once, so steady state use allocates nothing, and iteration reads
+ * consecutive array slots.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class RingDeque<Item> implements Iterable<Item> {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private Item[] a;  // ring buffer, length is a power of two
+  private int head;  // index of the first item
+  private int N;     // number of elements on queue
+
+  /**
+   * Initializes an empty queue.
+   */
+  public RingDeque() {
+    a = (Item[]) new Object[MIN_CAPACITY];
+    head = 0;
+    N = 0;
+  }
+
+  /**
+   * Returns true if this queue is empty.
+   *
+   * @return <tt>true</tt> if this queue is empty; <tt>false</tt> otherwise
+   */
+  public boolean isEmpty() {
+    return N == 0;
+  }
+
+  /**
+   * Returns the number of items in this queue.
+   *
+   * @return the number of items in this queue
+   */
+  public int size() {
+    return N;
+  }
+
+  // move the items to a new array of the given power of two capacity,
+  // unwrapped so that the first item is at index 0
+  private void resize(int capacity) {
+    assert capacity >= N && Integer.bitCount(capacity) == 1;
+    Item[] temp = (Item[]) new Object[capacity];
+    int mask = a.length - 1;
+    for (int i = 0; i < N; i++)
+      temp[i] = a[(head + i) & mask];
+    a = temp;
+    head = 0;
+  }
+
+  // halve the array once it is a quarter full
+  private void shrink() {
+    if (a.length > MIN_CAPACITY && N == a.length / 4)
+      resize(a.length / 2);
+  }
+
+  /*
+   * check if an item is null and throw exception
+   */
+  private void checkItem(Item item) {
+    if (item == null)
+      throw new java.lang.NullPointerException();
+  }
+
+  /**
+   * Adds an item to the front of the queue
+   *
+   * @param item the item to add
+   * @throws java.lang.NullPointerException if item is null
+   */
+  public void addFirst(Item item) {
+    checkItem(item);
+    if (N == a.length)
+      resize(2 * a.length);
+    head = (head - 1) & (a.length - 1);
+    a[head] = item;
+    N++;
+  }
+
+  /**
+   * Adds an item to the end of the queue
+   *
+   * @param item the item to add
+   * @throws java.lang.NullPointerException if item is null
+   */
+  public void addLast(Item item) {
+    checkItem(item);
+    if (N == a.length)
+      resize(2 * a.length);
+    a[(head + N) & (a.length - 1)] = item;
+    N++;
+  }
+
+  /**
+   * Remove and return the item from the front
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return first item in queue
+   */
+  public Item removeFirst() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+    Item item = a[head];
+    a[head] = null;  // to avoid loitering
+    head = (head + 1) & (a.length - 1);
+    N--;
+    shrink();
+    return item;
+  }
+
+  /**
+   * Remove and return the item from the end
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return last item in queue
+   */
+  public Item removeLast() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+    int last = (head + N - 1) & (a.length - 1);
+    Item item = a[last];
+    a[last] = null;  // to avoid loitering
+    N--;
+    shrink();
+    return item;
+  }
+
+  /**
+   * Returns an iterator that iterates over the items in this queue in FIFO order.
+   * @return an iterator that iterates over the items in this queue in FIFO order
+   */
+  public Iterator<Item> iterator() {
+    return new RingIterator();
+  }
+
+  // an iterator, doesn't implement remove() since it's optional
+  private class RingIterator implements Iterator<Item> {
+    private int i = 0;
+
+    public boolean hasNext() {
+      return i < N;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public Item next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return a[(head + i++) & (a.length - 1)];
+    }
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    // initialize a deque class
+    RingDeque<String> q = new RingDeque<String>();
+
+    q.addFirst("b");
+    q.addFirst("a");
+    q.addLast("c");
+    q.addLast("d");
+    q.removeFirst();
+    q.removeLast();
+
+    StdOut.println("(" + q.size() + " left on queue)");
+
+    // print using iterators
+    for (String s : q)
+      StdOut.println(s);
+
+    // wrap around, grow and shrink again
+    RingDeque<Integer> r = new RingDeque<Integer>();
+    for (int i = 0; i < 100; i++) {
+      r.addFirst(-i);
+      r.addLast(i);
+    }
+    int sum = 0;
+    while (r.size() > 2)
+      sum += r.removeFirst() + r.removeLast();
+    StdOut.println("sum = " + sum + ", " + r.size() + " left: "
+        + r.removeFirst() + " " + r.removeLast());
+  }
+}
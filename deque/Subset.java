@@ -3,11 +3,42 @@ import edu.princeton.cs.algs4.StdOut;
 
 public class Subset {
 
+  // sample k tokens of standard input in O(k) memory, reading the input
+  // with a byte tokenizer and skipping the tokens the sampler drops
+  private static void reservoir(int k, ReservoirSampler.Algorithm algorithm) {
+    ReservoirSampler<String> sampler = new ReservoirSampler<String>(k,
+        algorithm);
+    ByteTokenizer in = new ByteTokenizer(System.in);
+
+    while (true) {
+      long s = sampler.toSkip();
+      if (s > 0) {
+        long n = in.skip(s);
+        sampler.skip(n);
+        if (n < s)
+          break;
+      }
+      if (!in.hasNext())
+        break;
+      sampler.add(in.next());
+    }
+
+    for (String str : sampler)
+      StdOut.println(str);
+  }
+
+  // java Subset k [R | L], the reservoir algorithm reads large inputs
+  // faster
   public static void main(String[] args) {
 
     // read k
     int k = Integer.parseInt(args[0]);
 
+    if (args.length > 1) {
+      reservoir(k, ReservoirSampler.Algorithm.valueOf(args[1]));
+      return;
+    }
+
     // create randomizedQueue class
     RandomizedQueue<String> q = new RandomizedQueue<String>();
 
@@ -0,0 +1,381 @@
+/****************************************************************************
+ * 
+ * WeightedRandomizedQueue: randomized queue with weighted sampling
+ *
+ ****************************************************************************/
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * The <tt>WeightedRandomizedQueue</tt> class is a <tt>RandomizedQueue</tt>
+ * whose items are drawn with probability proportional to their weight
+ * instead of uniformly. <tt>enqueue</tt>, <tt>sample</tt>,
+ * <tt>dequeue</tt> and <tt>setWeight</tt> take O(log n) time.
+ * <p>
+ * Items sit in an array as in <tt>RandomizedQueue</tt>, and a Fenwick
+ * (binary indexed) tree over their weights gives prefix sums. An item is
+ * drawn by walking down the tree to the slot where the prefix sum passes a
+ * uniform point in [0, total weight). <tt>dequeue</tt> moves the last item
+ * into the slot that was emptied, the same trick <tt>RandomizedQueue</tt>
+ * uses, and fixes up the tree for the two slots. Weights are looked up by
+ * item through a hash map, so the items in the queue must be distinct.
+ * <p>
+ * Every update adds a delta to the tree, so rounding errors can build up.
+ * The tree is rebuilt from the exact weights whenever the array is resized
+ * and after as many updates as the array has slots, which costs O(1)
+ * amortized per update.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+
+  private Item[] a;                       // array elements
+  private double[] weight;                // weight of a[i]
+  private double[] tree;                  // Fenwick tree, tree[1..length]
+  private final HashMap<Item, Integer> index; // slot of each item
+  private int N;                          // number of elements on queue
+  private int updates;                    // tree updates since rebuild
+
+  /**
+   * Construct an empty weighted randomized queue
+   */
+  public WeightedRandomizedQueue() {
+    a = (Item[]) new Object[2];
+    weight = new double[2];
+    tree = new double[3];
+    index = new HashMap<Item, Integer>();
+    N = 0;
+    updates = 0;
+  }
+
+  /**
+   * Is this queue empty?
+   * 
+   * @return true if this queue is empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return N == 0;
+  }
+
+  /**
+   * Returns the number of items in this queue.
+   * 
+   * @return the number of items in this queue
+   */
+  public int size() {
+    return N;
+  }
+
+  /**
+   * Returns the sum of the weights of the items in this queue.
+   * 
+   * @return the total weight
+   */
+  public double totalWeight() {
+    return prefix(N);
+  }
+
+  // sum of the weights of the slots [0, n)
+  private double prefix(int n) {
+    double sum = 0;
+    for (int i = n; i > 0; i -= i & -i)
+      sum += tree[i];
+    return sum;
+  }
+
+  // add delta to the weight of slot i in the tree
+  private void add(int i, double delta) {
+    for (int j = i + 1; j < tree.length; j += j & -j)
+      tree[j] += delta;
+    updates++;
+  }
+
+  // rebuild the tree once it has taken as many updates as there are slots;
+  // called when the weights are consistent again
+  private void settle() {
+    if (updates > a.length)
+      rebuild();
+  }
+
+  // build the tree from the weights in O(n); the empty slots have weight
+  // 0 but still pass the sums of their children up
+  private void rebuild() {
+    java.util.Arrays.fill(tree, 0.0);
+    for (int i = 0; i < a.length; i++) {
+      int j = i + 1;
+      tree[j] += weight[i];
+      int parent = j + (j & -j);
+      if (parent < tree.length)
+        tree[parent] += tree[j];
+    }
+    updates = 0;
+  }
+
+  // resize the underlying arrays holding the elements
+  private void resize(int capacity) {
+    assert capacity >= N;
+    Item[] temp = (Item[]) new Object[capacity];
+    double[] w = new double[capacity];
+    for (int i = 0; i < N; i++) {
+      temp[i] = a[i];
+      w[i] = weight[i];
+    }
+    a = temp;
+    weight = w;
+    tree = new double[capacity + 1];
+    rebuild();
+  }
+
+  /*
+   * check if an item is null and throw exception
+   */
+  private void checkItem(Item item) {
+    if (item == null)
+      throw new java.lang.NullPointerException();
+  }
+
+  // throw an exception unless w is a positive finite weight
+  private static void checkWeight(double w) {
+    if (!(w > 0) || Double.isInfinite(w))
+      throw new java.lang.IllegalArgumentException("weight must be > 0");
+  }
+
+  /**
+   * Adds the item to this queue with the given weight.
+   * 
+   * @param item
+   *          the item to add
+   * @param w
+   *          the weight of the item, positive and finite
+   * @throws java.lang.IllegalArgumentException
+   *           if the item is already in the queue or the weight is invalid
+   */
+  public void enqueue(Item item, double w) {
+    checkItem(item);
+    checkWeight(w);
+    if (index.containsKey(item))
+      throw new java.lang.IllegalArgumentException("item already queued");
+
+    // double size of array if necessary
+    if (N == a.length)
+      resize(2 * a.length);
+
+    // add item
+    a[N] = item;
+    weight[N] = w;
+    index.put(item, N);
+    add(N, w);
+    N++;
+    settle();
+  }
+
+  // slot of a random item, drawn proportional to the weights
+  private int randomSlot() {
+    double r = StdRandom.uniform() * prefix(N);
+
+    // walk down the tree to the first slot whose prefix sum passes r
+    int pos = 0;
+    for (int step = Integer.highestOneBit(tree.length - 1); step > 0;
+        step >>= 1) {
+      int next = pos + step;
+      if (next < tree.length && tree[next] <= r) {
+        pos = next;
+        r -= tree[next];
+      }
+    }
+    // rounding can push the walk past the last item
+    return Math.min(pos, N - 1);
+  }
+
+  /**
+   * Removes and returns a random item on this queue, drawn with probability
+   * proportional to its weight.
+   * 
+   * @return a random item on this queue
+   * @throws java.util.NoSuchElementException
+   *           if this queue is empty
+   */
+  public Item dequeue() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+
+    // replace the random item with the last one
+    int i = randomSlot();
+    Item item = a[i];
+    int last = N - 1;
+    if (i != last) {
+      a[i] = a[last];
+      add(i, weight[last] - weight[i]);
+      weight[i] = weight[last];
+      index.put(a[i], i);
+    }
+    add(last, -weight[last]);
+
+    // to avoid loitering
+    a[last] = null;
+    weight[last] = 0;
+    index.remove(item);
+    N--;
+
+    // shrink size of array if necessary
+    if (N > 0 && N == a.length / 4)
+      resize(a.length / 2);
+    else
+      settle();
+
+    return item;
+  }
+
+  /**
+   * Returns (but does not remove) a random item, drawn with probability
+   * proportional to its weight.
+   * 
+   * @return a random item on this queue
+   * @throws java.util.NoSuchElementException
+   *           if this queue is empty
+   */
+  public Item sample() {
+    if (isEmpty())
+      throw new NoSuchElementException("Queue underflow");
+    return a[randomSlot()];
+  }
+
+  /**
+   * Returns the weight of an item on this queue.
+   * 
+   * @param item
+   *          an item on this queue
+   * @return the weight of the item
+   * @throws java.util.NoSuchElementException
+   *           if the item is not on this queue
+   */
+  public double weight(Item item) {
+    return weight[slotOf(item)];
+  }
+
+  /**
+   * Changes the weight of an item on this queue.
+   * 
+   * @param item
+   *          an item on this queue
+   * @param w
+   *          the new weight, positive and finite
+   * @throws java.util.NoSuchElementException
+   *           if the item is not on this queue
+   */
+  public void setWeight(Item item, double w) {
+    checkWeight(w);
+    int i = slotOf(item);
+    add(i, w - weight[i]);
+    weight[i] = w;
+    settle();
+  }
+
+  // slot of an item on the queue
+  private int slotOf(Item item) {
+    checkItem(item);
+    Integer i = index.get(item);
+    if (i == null)
+      throw new NoSuchElementException("item not on queue");
+    return i;
+  }
+
+  // return an independent iterator over the items in weighted random
+  // order, i.e. the order in which repeated dequeues could remove them
+  public Iterator<Item> iterator() {
+    return new WeightedIterator();
+  }
+
+  // an iterator, doesn't implement remove() since it's optional; it draws
+  // from a copy of the tree, so the queue itself is not touched
+  private class WeightedIterator implements Iterator<Item> {
+    private final Item[] items = a;
+    private final double[] w = java.util.Arrays.copyOf(weight, N);
+    private final double[] t = java.util.Arrays.copyOf(tree, tree.length);
+    private final int n = N;
+    private int i = 0;
+
+    public boolean hasNext() {
+      return i < n;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public Item next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+
+      double total = 0;
+      for (int j = n; j > 0; j -= j & -j)
+        total += t[j];
+      double r = StdRandom.uniform() * total;
+      int pos = 0;
+      for (int step = Integer.highestOneBit(t.length - 1); step > 0;
+          step >>= 1) {
+        int next = pos + step;
+        if (next < t.length && t[next] <= r) {
+          pos = next;
+          r -= t[next];
+        }
+      }
+      // skip slots already taken, which rounding can leave a tiny weight
+      pos = Math.min(pos, n - 1);
+      while (w[pos] == 0)
+        pos = (pos == 0) ? n - 1 : pos - 1;
+
+      // take the slot out of the copy
+      for (int j = pos + 1; j < t.length; j += j & -j)
+        t[j] -= w[pos];
+      w[pos] = 0;
+      i++;
+      return items[pos];
+    }
+  }
+
+  /**
+   * Unit tests the <tt>WeightedRandomizedQueue</tt> data type.
+   */
+  public static void main(String[] args) {
+    int trials = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    WeightedRandomizedQueue<String> q = new WeightedRandomizedQueue<String>();
+    String[] names = { "a", "b", "c", "d" };
+    for (int i = 0; i < names.length; i++)
+      q.enqueue(names[i], i + 1);
+
+    // sample: expect 0.1 0.2 0.3 0.4
+    HashMap<String, Integer> hits = new HashMap<String, Integer>();
+    for (int t = 0; t < trials; t++)
+      hits.merge(q.sample(), 1, Integer::sum);
+    StdOut.print("sample:");
+    for (String s : names)
+      StdOut.printf(" %s %.3f", s, hits.getOrDefault(s, 0) / (double) trials);
+    StdOut.println();
+
+    // after the update: expect 0.4 0.2 0.3 0.1
+    q.setWeight("a", 4);
+    q.setWeight("d", 1);
+    hits.clear();
+    for (int t = 0; t < trials; t++)
+      hits.merge(q.sample(), 1, Integer::sum);
+    StdOut.print("update:");
+    for (String s : names)
+      StdOut.printf(" %s %.3f", s, hits.getOrDefault(s, 0) / (double) trials);
+    StdOut.println();
+
+    // the iterator and dequeue give every item once
+    StdOut.print("iterator:");
+    for (String s : q)
+      StdOut.print(" " + s);
+    StdOut.print("\ndequeue: ");
+    while (!q.isEmpty())
+      StdOut.print(" " + q.dequeue());
+    StdOut.println();
+  }
+}
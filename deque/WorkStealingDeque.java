@@ -0,0 +1,230 @@
+/****************************************************************************
+ * 
+ * WorkStealingDeque: Chase-Lev work-stealing deque
+ *
+ ****************************************************************************/
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The <tt>WorkStealingDeque</tt> class is a lock-free concurrent deque after
+ * Chase and Lev ("Dynamic Circular Work-Stealing Deque", SPAA 2005). One
+ * owner thread adds and removes items at the end of the queue, like a stack;
+ * any number of other threads steal items from the front. The owner only
+ * synchronizes with thieves when one item is left, so in the common case
+ * both ends run without a compare-and-set or a lock.
+ * <p>
+ * The items live in a circular array indexed by two ever increasing
+ * counters, <tt>top</tt> (the front, advanced by CAS) and <tt>bottom</tt>
+ * (the end, written by the owner only). When the owner finds the array full
+ * it copies the items into one twice as large; the old array is left
+ * intact for thieves that still read it.
+ * <p>
+ * The method names are those of <tt>Deque</tt>. <tt>addLast</tt>,
+ * <tt>removeLast</tt> and <tt>pollLast</tt> may only be called by the owner
+ * thread; <tt>removeFirst</tt> and <tt>pollFirst</tt> may be called by any
+ * thread. There is no <tt>addFirst</tt>, since only the owner may add, and
+ * no iterator, since the items can be stolen while it runs.
+ * 
+ * @author Konstantinos Vantas k_vantas@yahoo.gr
+ */
+public class WorkStealingDeque<Item> {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private final AtomicLong top = new AtomicLong();  // index of the front
+  private volatile long bottom;                      // one past the end
+  private volatile AtomicReferenceArray<Item> array; // power of two length
+
+  /**
+   * Initializes an empty queue.
+   */
+  public WorkStealingDeque() {
+    array = new AtomicReferenceArray<Item>(MIN_CAPACITY);
+    bottom = 0;
+  }
+
+  /**
+   * Returns true if this queue is empty. The answer may be stale as soon as
+   * it is returned when other threads use the queue.
+   *
+   * @return <tt>true</tt> if this queue is empty; <tt>false</tt> otherwise
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the number of items in this queue, as seen at some moment
+   * during the call.
+   *
+   * @return the number of items in this queue
+   */
+  public int size() {
+    long n = bottom - top.get();
+    return (n < 0) ? 0 : (int) n;
+  }
+
+  // copy the items [t, b) into an array twice as large
+  private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> old,
+      long b, long t) {
+    AtomicReferenceArray<Item> temp =
+        new AtomicReferenceArray<Item>(2 * old.length());
+    int oldMask = old.length() - 1;
+    int mask = temp.length() - 1;
+    for (long i = t; i < b; i++)
+      temp.lazySet((int) i & mask, old.get((int) i & oldMask));
+    array = temp;
+    return temp;
+  }
+
+  /**
+   * Adds an item to the end of the queue; owner thread only.
+   *
+   * @param item the item to add
+   * @throws java.lang.NullPointerException if item is null
+   */
+  public void addLast(Item item) {
+    if (item == null)
+      throw new java.lang.NullPointerException();
+    long b = bottom;
+    long t = top.get();
+    AtomicReferenceArray<Item> a = array;
+    if (b - t >= a.length())
+      a = grow(a, b, t);
+    a.lazySet((int) b & (a.length() - 1), item);
+    // the volatile write publishes the item to the thieves
+    bottom = b + 1;
+  }
+
+  /**
+   * Removes and returns the item from the end, or null if the queue is
+   * empty; owner thread only.
+   *
+   * @return last item in queue, or null
+   */
+  public Item pollLast() {
+    long b = bottom - 1;
+    AtomicReferenceArray<Item> a = array;
+    // claim the slot first, then look at the front; the volatile write and
+    // read keep a thief from taking the same item unnoticed
+    bottom = b;
+    long t = top.get();
+    if (t > b) {
+      // the queue was empty
+      bottom = b + 1;
+      return null;
+    }
+    int slot = (int) b & (a.length() - 1);
+    Item item = a.get(slot);
+    if (t == b) {
+      // last item, race the thieves for it
+      if (!top.compareAndSet(t, t + 1))
+        item = null;
+      bottom = b + 1;
+    }
+    if (item != null)
+      a.lazySet(slot, null);  // to avoid loitering
+    return item;
+  }
+
+  /**
+   * Removes and returns the item from the front, or null if the queue is
+   * empty; any thread. Retries when another thread takes the same item.
+   *
+   * @return first item in queue, or null
+   */
+  public Item pollFirst() {
+    while (true) {
+      long t = top.get();
+      long b = bottom;
+      if (t >= b)
+        return null;
+      AtomicReferenceArray<Item> a = array;
+      Item item = a.get((int) t & (a.length() - 1));
+      if (top.compareAndSet(t, t + 1))
+        return item;
+    }
+  }
+
+  /**
+   * Remove and return the item from the end; owner thread only.
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return last item in queue
+   */
+  public Item removeLast() {
+    Item item = pollLast();
+    if (item == null)
+      throw new NoSuchElementException("Queue underflow");
+    return item;
+  }
+
+  /**
+   * Remove and return the item from the front; any thread.
+   *
+   * @throws java.lang.NoSuchElementException if queue is empty
+   * @return first item in queue
+   */
+  public Item removeFirst() {
+    Item item = pollFirst();
+    if (item == null)
+      throw new NoSuchElementException("Queue underflow");
+    return item;
+  }
+
+  // unit testing: the owner pushes and pops, thieves steal, and every item
+  // must be taken exactly once
+  public static void main(String[] args) throws InterruptedException {
+    final int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    final int thieves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    final WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+    final int[] taken = new int[n];
+    final AtomicBoolean done = new AtomicBoolean();
+
+    Thread[] threads = new Thread[thieves];
+    for (int k = 0; k < thieves; k++) {
+      threads[k] = new Thread(() -> {
+        while (true) {
+          Integer i = q.pollFirst();
+          if (i != null)
+            taken[i]++;
+          else if (done.get())
+            break;
+        }
+      });
+      threads[k].start();
+    }
+
+    int popped = 0;
+    for (int i = 0; i < n; i++) {
+      q.addLast(i);
+      if (i % 3 == 0) {
+        Integer j = q.pollLast();
+        if (j != null) {
+          taken[j]++;
+          popped++;
+        }
+      }
+    }
+    for (Integer j = q.pollLast(); j != null; j = q.pollLast()) {
+      taken[j]++;
+      popped++;
+    }
+    done.set(true);
+    for (Thread th : threads)
+      th.join();
+
+    int bad = 0;
+    for (int i = 0; i < n; i++)
+      if (taken[i] != 1)
+        bad++;
+    StdOut.println(popped + " popped, " + (n - popped) + " stolen, " + bad
+        + " items not taken exactly once");
+  }
+}
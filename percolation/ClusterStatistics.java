@@ -0,0 +1,161 @@
+/*
+ * ClusterStatistics.java
+ *
+ * Cluster size statistics of a percolation system, kept up to date as sites
+ * are opened. The engine reports every new site (a cluster of size 1) and
+ * every union of two clusters with their sizes, which the union-find roots
+ * already know, so each update is O(1) and the grid is never relabelled:
+ * the histogram moves two clusters from their buckets to one, and the
+ * number of clusters, the largest cluster and the sum of squared sizes are
+ * adjusted in place.
+ *
+ */
+
+import java.util.Arrays;
+
+public class ClusterStatistics {
+
+  private int[] count;      // count[s] = number of clusters of size s
+  private int clusters;     // number of clusters
+  private long sites;       // number of open sites
+  private int largest;      // size of the largest cluster
+  private long sumSquares;  // sum of the squared cluster sizes
+
+  /**
+   * Initializes the statistics of a system with no open sites.
+   */
+  public ClusterStatistics() {
+    count = new int[16];
+    clusters = 0;
+    sites = 0;
+    largest = 0;
+    sumSquares = 0;
+  }
+
+  /**
+   * Records a newly opened site, a new cluster of size 1.
+   */
+  public void opened() {
+    add(1, 1);
+    clusters++;
+    sites++;
+    sumSquares++;
+    if (largest == 0)
+      largest = 1;
+  }
+
+  /**
+   * Records the union of two distinct clusters.
+   *
+   * @param a
+   *          the size of the first cluster
+   * @param b
+   *          the size of the second cluster
+   */
+  public void merged(int a, int b) {
+    add(a, -1);
+    add(b, -1);
+    add(a + b, 1);
+    clusters--;
+    sumSquares += 2L * a * b;
+    if (a + b > largest)
+      largest = a + b;
+  }
+
+  // add delta clusters of size s to the histogram
+  private void add(int s, int delta) {
+    if (s >= count.length)
+      count = Arrays.copyOf(count, Math.max(2 * count.length, s + 1));
+    count[s] += delta;
+  }
+
+  /**
+   * Returns the number of clusters.
+   *
+   * @return the number of clusters
+   */
+  public int clusters() {
+    return clusters;
+  }
+
+  /**
+   * Returns the number of open sites.
+   *
+   * @return the number of open sites
+   */
+  public long openSites() {
+    return sites;
+  }
+
+  /**
+   * Returns the size of the largest cluster.
+   *
+   * @return the size of the largest cluster, 0 if there are none
+   */
+  public int largest() {
+    return largest;
+  }
+
+  /**
+   * Returns the number of clusters of the given size.
+   *
+   * @param s
+   *          a cluster size
+   * @return the number of clusters of size s
+   */
+  public int clustersOfSize(int s) {
+    if (s < 0 || s >= count.length)
+      return 0;
+    return count[s];
+  }
+
+  /**
+   * Returns the mean cluster size, open sites per cluster.
+   *
+   * @return the mean cluster size, NaN if there are no clusters
+   */
+  public double mean() {
+    if (clusters == 0)
+      return Double.NaN;
+    return sites / (double) clusters;
+  }
+
+  /**
+   * Returns the mean size of the cluster of a random open site, the sum of
+   * the squared sizes over the number of open sites.
+   *
+   * @return the site-weighted mean cluster size, NaN if no site is open
+   */
+  public double weightedMean() {
+    if (sites == 0)
+      return Double.NaN;
+    return sumSquares / (double) sites;
+  }
+
+  /**
+   * Returns an independent copy of the current statistics.
+   *
+   * @return a snapshot of the statistics
+   */
+  public ClusterStatistics snapshot() {
+    ClusterStatistics copy = new ClusterStatistics();
+    copy.count = Arrays.copyOf(count, largest + 1);
+    copy.clusters = clusters;
+    copy.sites = sites;
+    copy.largest = largest;
+    copy.sumSquares = sumSquares;
+    return copy;
+  }
+
+  // test client: N, prints the statistics at a few fill fractions
+  public static void main(String[] args) {
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    double[] fractions = { 0.2, 0.4, 0.55, 0.6, 0.65, 0.8 };
+    ClusterStatistics[] s = PercolationStats.clusterProfile(
+        new SquareLattice(N), fractions, 1L);
+    System.out.println("fill\tclusters\tlargest\tmean\tweighted mean");
+    for (int i = 0; i < s.length; i++)
+      System.out.printf("%.2f\t%d\t%d\t%.3f\t%.3f%n", fractions[i],
+          s[i].clusters(), s[i].largest(), s[i].mean(), s[i].weightedMean());
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * CubicLattice.java
+ *
+ * N-by-N-by-N simple cubic lattice, site = (layer * N + row) * N + col, each
+ * site linked to its six face neighbors. Water enters through layer 0 and
+ * the system percolates when it reaches layer N - 1. Site percolation
+ * threshold about 0.3116.
+ *
+ */
+
+public class CubicLattice implements Lattice {
+
+  private final int dim;    // dimension of the cube
+  private final int area;   // sites per layer (N^2)
+
+  /**
+   * Creates an N-by-N-by-N cubic lattice.
+   *
+   * @param N
+   *          the dimension of the lattice
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 1290]
+   */
+  public CubicLattice(int N) {
+    if (N < 1 || N > 1290)
+      throw new java.lang.IllegalArgumentException("N must be in [1, 1290]");
+    dim = N;
+    area = N * N;
+  }
+
+  public int size() {
+    return area * dim;
+  }
+
+  public int degree() {
+    return 6;
+  }
+
+  public int neighbors(int site, int[] buf) {
+    int layer = site / area;
+    int rest = site - layer * area;
+    int row = rest / dim;
+    int col = rest - row * dim;
+    int n = 0;
+    if (col > 0)
+      buf[n++] = site - 1;
+    if (col < dim - 1)
+      buf[n++] = site + 1;
+    if (row > 0)
+      buf[n++] = site - dim;
+    if (row < dim - 1)
+      buf[n++] = site + dim;
+    if (layer > 0)
+      buf[n++] = site - area;
+    if (layer < dim - 1)
+      buf[n++] = site + area;
+    return n;
+  }
+
+  public boolean isTop(int site) {
+    return site < area;
+  }
+
+  public boolean isBottom(int site) {
+    return site >= area * (dim - 1);
+  }
+
+  public String toString() {
+    return "cubic " + dim + "x" + dim + "x" + dim;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * GridUnionFind.java
+ *
+ * Union-find packed into a single int[] for percolation grids.
+ *
+ * parent[p] >= 0 is the parent of p. parent[p] < 0 marks a root and
+ * ~parent[p] holds the component meta data: (size - 1) << 2 | flags, where
+ * the two low bits are the TOP and BOTTOM flags of the component. Union is
+ * by size and find uses path halving, so the tree depth stays logarithmic
+ * and shrinks with every query. One int per site replaces the two int
+ * arrays of WeightedQuickUnionUF and the separate per-root flag array.
+ *
+ * The root-level methods (link, flags, addFlags, size) take roots so that
+ * the grid code can keep the root of a freshly opened site in a local while
+ * it links the up to four open neighbours, paying one find per neighbour.
+ *
+ */
+
+import java.util.Arrays;
+
+public class GridUnionFind {
+
+  /** Flag of a component touching the top of the system. */
+  public static final int TOP    = 1;
+  /** Flag of a component touching the bottom of the system. */
+  public static final int BOTTOM = 2;
+  /** Largest number of sites the packed encoding can hold (2^29). */
+  public static final int MAX_SITES = 1 << 29;
+
+  private static final int FLAGS = TOP | BOTTOM;
+
+  private final int[] parent; // parent links, or ~meta at roots
+
+  /**
+   * Initializes n singleton components with no flags.
+   *
+   * @param n
+   *          the number of sites
+   * @throws java.lang.IllegalArgumentException
+   *           if n is not in [0, 2^29]
+   */
+  public GridUnionFind(int n) {
+    if (n < 0 || n > MAX_SITES)
+      throw new java.lang.IllegalArgumentException("n must be in [0, 2^29]");
+    parent = new int[n];
+    Arrays.fill(parent, -1);
+  }
+
+  /**
+   * Returns the number of sites.
+   *
+   * @return the number of sites
+   */
+  public int capacity() {
+    return parent.length;
+  }
+
+  /**
+   * Makes the first n sites singleton components with no flags again.
+   *
+   * @param n
+   *          the number of sites to reset
+   */
+  public void reset(int n) {
+    Arrays.fill(parent, 0, n, -1);
+  }
+
+  /**
+   * Returns the root of the component containing p, halving the path.
+   *
+   * @param p
+   *          a site
+   * @return the root of the component containing p
+   */
+  public int find(int p) {
+    int[] a = parent;
+    while (a[p] >= 0) {
+      int q = a[p];
+      int r = a[q];
+      if (r < 0)
+        return q;
+      // point p at its grandparent and continue from there
+      a[p] = r;
+      p = r;
+    }
+    return p;
+  }
+
+  /**
+   * Are p and q in the same component?
+   *
+   * @param p
+   *          a site
+   * @param q
+   *          a site
+   * @return <tt>true</tt> if p and q are connected
+   */
+  public boolean connected(int p, int q) {
+    return find(p) == find(q);
+  }
+
+  /**
+   * Merges the components containing p and q.
+   *
+   * @param p
+   *          a site
+   * @param q
+   *          a site
+   * @return the root of the merged component
+   */
+  public int union(int p, int q) {
+    return link(find(p), find(q));
+  }
+
+  /**
+   * Merges two components given by their roots; the smaller tree is hung
+   * below the larger one and the flags of both are kept.
+   *
+   * @param rootP
+   *          a root
+   * @param rootQ
+   *          a root
+   * @return the root of the merged component
+   */
+  public int link(int rootP, int rootQ) {
+    if (rootP == rootQ)
+      return rootP;
+    int metaP = ~parent[rootP];
+    int metaQ = ~parent[rootQ];
+    // (size - 1) fields add up to size - 2, flags are or-ed
+    int meta = ((metaP & ~FLAGS) + (metaQ & ~FLAGS) + (1 << 2))
+        | ((metaP | metaQ) & FLAGS);
+    if (metaP < metaQ) {
+      parent[rootP] = rootQ;
+      parent[rootQ] = ~meta;
+      return rootQ;
+    }
+    parent[rootQ] = rootP;
+    parent[rootP] = ~meta;
+    return rootP;
+  }
+
+  /**
+   * Returns the flags of the component with the given root.
+   *
+   * @param root
+   *          a root
+   * @return the TOP/BOTTOM flags of the component
+   */
+  public int flags(int root) {
+    return ~parent[root] & FLAGS;
+  }
+
+  /**
+   * Adds flags to the component with the given root.
+   *
+   * @param root
+   *          a root
+   * @param flags
+   *          TOP and/or BOTTOM
+   */
+  public void addFlags(int root, int flags) {
+    parent[root] = ~(~parent[root] | (flags & FLAGS));
+  }
+
+  /**
+   * Returns the number of sites in the component with the given root.
+   *
+   * @param root
+   *          a root
+   * @return the size of the component
+   */
+  public int size(int root) {
+    return (~parent[root] >>> 2) + 1;
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+    GridUnionFind uf = new GridUnionFind(6);
+    uf.addFlags(0, TOP);
+    uf.addFlags(5, BOTTOM);
+    uf.union(0, 1);
+    uf.union(2, 3);
+    uf.union(1, 3);
+    System.out.println("size of 0:      " + uf.size(uf.find(0)));
+    System.out.println("flags of 3:     " + uf.flags(uf.find(3)));
+    uf.union(3, 5);
+    System.out.println("flags of 2:     " + uf.flags(uf.find(2)));
+    System.out.println("0, 4 connected: " + uf.connected(0, 4));
+  }
+}
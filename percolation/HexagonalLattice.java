@@ -0,0 +1,65 @@
+/*
+ * HexagonalLattice.java
+ *
+ * N-by-N hexagonal (honeycomb) lattice drawn as a brick wall on a square
+ * grid, site = row * N + col. Every site is linked to its left and right
+ * neighbor and to one vertical neighbor: the one below when row + col is
+ * even, the one above when it is odd, giving three neighbors. The top is
+ * row 0, the bottom row N - 1. Site percolation threshold about 0.6970.
+ *
+ */
+
+public class HexagonalLattice implements Lattice {
+
+  private final int dim;   // dimension of grid
+
+  /**
+   * Creates an N-by-N hexagonal lattice.
+   *
+   * @param N
+   *          the dimension of the lattice
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 46340]
+   */
+  public HexagonalLattice(int N) {
+    if (N < 1 || N > 46340)
+      throw new java.lang.IllegalArgumentException("N must be in [1, 46340]");
+    dim = N;
+  }
+
+  public int size() {
+    return dim * dim;
+  }
+
+  public int degree() {
+    return 3;
+  }
+
+  public int neighbors(int site, int[] buf) {
+    int row = site / dim;
+    int col = site - row * dim;
+    int n = 0;
+    if (col > 0)
+      buf[n++] = site - 1;
+    if (col < dim - 1)
+      buf[n++] = site + 1;
+    if (((row + col) & 1) == 0) {
+      if (row < dim - 1)
+        buf[n++] = site + dim;
+    } else if (row > 0)
+      buf[n++] = site - dim;
+    return n;
+  }
+
+  public boolean isTop(int site) {
+    return site < dim;
+  }
+
+  public boolean isBottom(int site) {
+    return site >= dim * (dim - 1);
+  }
+
+  public String toString() {
+    return "hexagonal " + dim + "x" + dim;
+  }
+}
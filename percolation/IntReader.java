@@ -0,0 +1,139 @@
+/*
+ * IntReader.java
+ *
+ * Reads whitespace separated decimal ints from a file, such as the N and
+ * "i j" site lists of the percolation input files. The file is read through
+ * a FileChannel into a direct ByteBuffer of 64 KB and the digits are parsed
+ * byte by byte. There is no Scanner, no regular expression and no String per
+ * token, so parsing keeps up with replaying multi-megabyte site files.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+public class IntReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;  // the file being read
+  private final ByteBuffer buf;       // bytes read but not yet parsed
+  private boolean eof;                // channel is exhausted
+
+  /**
+   * Opens the file for reading.
+   *
+   * @param file
+   *          the input file
+   * @throws java.io.IOException
+   *           if the file cannot be opened
+   */
+  public IntReader(File file) throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    buf.flip();
+    eof = false;
+  }
+
+  // next byte in [0, 255], or -1 at the end of the file
+  private int read() throws IOException {
+    if (!buf.hasRemaining()) {
+      if (eof)
+        return -1;
+      buf.clear();
+      int n = 0;
+      while (n == 0)
+        n = channel.read(buf);
+      buf.flip();
+      if (n < 0) {
+        eof = true;
+        return -1;
+      }
+    }
+    // bytes are signed, mask so that 0x80 and above are not taken for -1
+    return buf.get() & 0xFF;
+  }
+
+  // next byte without consuming it, or -1 at the end of the file
+  private int peek() throws IOException {
+    int b = read();
+    if (b >= 0)
+      buf.position(buf.position() - 1);
+    return b;
+  }
+
+  private static boolean isSpace(int b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+  }
+
+  /**
+   * Skips whitespace and tells whether another token follows. Any other
+   * byte, such as a byte order mark or a non-breaking space, starts a token
+   * that readInt rejects.
+   *
+   * @return <tt>true</tt> if the file has more input
+   * @throws java.io.IOException
+   *           if the file cannot be read
+   */
+  public boolean hasNext() throws IOException {
+    int b = peek();
+    while (b >= 0 && isSpace(b)) {
+      read();
+      b = peek();
+    }
+    return b >= 0;
+  }
+
+  /**
+   * Reads the next int.
+   *
+   * @return the int
+   * @throws java.io.IOException
+   *           if the file cannot be read
+   * @throws java.util.NoSuchElementException
+   *           if the file has no more input
+   * @throws java.util.InputMismatchException
+   *           if the next token is not an int
+   */
+  public int readInt() throws IOException {
+    if (!hasNext())
+      throw new NoSuchElementException("End of input");
+    int b = read();
+    boolean negative = (b == '-');
+    if (negative)
+      b = read();
+
+    // accumulate negatively so that Integer.MIN_VALUE fits
+    long value = 0;
+    int digits = 0;
+    while (b >= '0' && b <= '9') {
+      value = 10 * value - (b - '0');
+      if (value < Integer.MIN_VALUE)
+        throw new InputMismatchException("int out of range");
+      digits++;
+      b = read();
+    }
+    if (digits == 0 || (b >= 0 && !isSpace(b)))
+      throw new InputMismatchException((b < 0) ? "not an int"
+          : String.format("not an int, unexpected byte 0x%02x", b));
+    if (!negative && value == Integer.MIN_VALUE)
+      throw new InputMismatchException("int out of range");
+    return (int) (negative ? value : -value);
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws java.io.IOException
+   *           if the file cannot be closed
+   */
+  public void close() throws IOException {
+    channel.close();
+  }
+}
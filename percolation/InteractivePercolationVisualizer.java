@@ -28,7 +28,7 @@ public class InteractivePercolationVisualizer
     StdOut.println(N);
 
     StdDraw.show(0);
-    Percolation perc = new Percolation(N);
+    Percolation perc = new Percolation(N, true);
     PercolationVisualizer.draw(perc, N);
     StdDraw.show(0);
 
@@ -0,0 +1,56 @@
+/*
+ * Lattice.java
+ *
+ * The sites of a percolation system and their neighborhoods. Sites are
+ * numbered 0 .. size() - 1; the lattice tells which sites are adjacent and
+ * which sites lie on the top and the bottom of the system. Implementations
+ * are immutable, so one lattice can be shared by all worker threads.
+ *
+ */
+
+public interface Lattice {
+
+  /**
+   * Returns the number of sites.
+   *
+   * @return the number of sites
+   */
+  int size();
+
+  /**
+   * Returns the largest number of neighbors of any site, the buffer size
+   * needed by neighbors.
+   *
+   * @return the maximum degree of the lattice
+   */
+  int degree();
+
+  /**
+   * Writes the neighbors of a site to the start of buf.
+   *
+   * @param site
+   *          a site in [0, size())
+   * @param buf
+   *          buffer of at least degree() entries
+   * @return the number of neighbors written
+   */
+  int neighbors(int site, int[] buf);
+
+  /**
+   * Is the site on the top of the system?
+   *
+   * @param site
+   *          a site in [0, size())
+   * @return <tt>true</tt> if water enters the system at this site
+   */
+  boolean isTop(int site);
+
+  /**
+   * Is the site on the bottom of the system?
+   *
+   * @param site
+   *          a site in [0, size())
+   * @return <tt>true</tt> if the system percolates through this site
+   */
+  boolean isBottom(int site);
+}
@@ -0,0 +1,327 @@
+/*
+ * MappedPercolation.java
+ *
+ * Percolation on grids larger than the Java heap. The union-find parent
+ * array and the open bitset live in memory-mapped files, so the working set
+ * can spill to local disk; sites are indexed by long, which allows grids up
+ * to N = 2^31 - 1 as far as the file system permits (N = 100,000 needs about
+ * 80 GB for parents plus 1.2 GB for the bitset).
+ *
+ * A file cannot be mapped in one piece beyond 2 GB, so both files are
+ * mapped as a sequence of 1 GB segments and an index is split into segment
+ * and offset with a shift and a mask.
+ *
+ * The parent of site p is stored as a long v: v > 0 means parent v - 1 and
+ * v <= 0 marks a root whose component meta data is -v = (size - 1) << 2 |
+ * flags, with the TOP/BOTTOM flags of GridUnionFind. A freshly created
+ * (zero filled, sparse) file is therefore a grid of singleton roots and
+ * nothing has to be written up front. Union is by size with path halving,
+ * as in GridUnionFind.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+public class MappedPercolation implements Closeable {
+
+  private static final int  TOP    = GridUnionFind.TOP;
+  private static final int  BOTTOM = GridUnionFind.BOTTOM;
+  private static final long FLAGS  = TOP | BOTTOM;
+
+  private static final int  SEGMENT_SHIFT = 30;                 // 1 GB
+  private static final long SEGMENT_MASK  = (1L << SEGMENT_SHIFT) - 1;
+
+  private final int dim;                     // dimension of grid
+  private final long sites;                  // number of sites (N^2)
+  private final RandomAccessFile parentFile; // backing file of the parents
+  private final RandomAccessFile openFile;   // backing file of the bitset
+  private final File parentPath;             // path of the parent file
+  private final File openPath;               // path of the bitset file
+  private final MappedByteBuffer[] parent;   // segments of the parents
+  private final MappedByteBuffer[] open;     // segments of the open bitset
+  private long openSites;                    // number of open sites
+  private boolean sysPerc;                   // system percolates
+
+  /**
+   * Creates an N-by-N grid with all sites blocked, backed by two new
+   * temporary files in the given directory; the files are deleted on close.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @param dir
+   *          directory for the backing files
+   * @throws java.io.IOException
+   *           if the files cannot be created or mapped
+   */
+  public MappedPercolation(int N, File dir) throws IOException {
+    if (N < 1)
+      throw new java.lang.IllegalArgumentException("N must be > 0");
+
+    dim = N;
+    sites = (long) N * N;
+    File pf = null;
+    File of = null;
+    RandomAccessFile praf = null;
+    RandomAccessFile oraf = null;
+    try {
+      pf = File.createTempFile("parent", ".perc", dir);
+      pf.deleteOnExit();
+      of = File.createTempFile("open", ".perc", dir);
+      of.deleteOnExit();
+      praf = new RandomAccessFile(pf, "rw");
+      oraf = new RandomAccessFile(of, "rw");
+      parent = map(praf, sites * 8);
+      open = map(oraf, ((sites + 63) >>> 6) * 8);
+    } catch (Throwable e) {
+      // a full disk or address space, close and delete what was created
+      closeQuietly(praf, e);
+      closeQuietly(oraf, e);
+      if (pf != null)
+        pf.delete();
+      if (of != null)
+        of.delete();
+      throw e;
+    }
+    parentFile = praf;
+    openFile = oraf;
+    parentPath = pf;
+    openPath = of;
+    openSites = 0;
+    sysPerc = false;
+  }
+
+  // close a file that may be null, adding a failure to the pending one
+  private static void closeQuietly(RandomAccessFile file, Throwable pending) {
+    if (file == null)
+      return;
+    try {
+      file.close();
+    } catch (IOException e) {
+      pending.addSuppressed(e);
+    }
+  }
+
+  // map a zero filled file of the given length in 1 GB segments
+  private static MappedByteBuffer[] map(RandomAccessFile file, long length)
+      throws IOException {
+    file.setLength(length);
+    FileChannel channel = file.getChannel();
+    int n = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    MappedByteBuffer[] segments = new MappedByteBuffer[n];
+    for (int s = 0; s < n; s++) {
+      long pos = (long) s << SEGMENT_SHIFT;
+      long size = Math.min(1L << SEGMENT_SHIFT, length - pos);
+      segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, pos, size);
+    }
+    return segments;
+  }
+
+  // read and write the long at the given long index of a segmented file
+  private static long getLong(MappedByteBuffer[] seg, long index) {
+    long off = index << 3;
+    int pos = (int) (off & SEGMENT_MASK);
+    return seg[(int) (off >>> SEGMENT_SHIFT)].getLong(pos);
+  }
+
+  private static void putLong(MappedByteBuffer[] seg, long index, long v) {
+    long off = index << 3;
+    int pos = (int) (off & SEGMENT_MASK);
+    seg[(int) (off >>> SEGMENT_SHIFT)].putLong(pos, v);
+  }
+
+  // throw an exception if i and j are outside [1,N]
+  private void checkIJ(int i, int j) {
+    if ((i < 1) || (i > dim) || (j < 1) || (j > dim))
+      throw new java.lang.IndexOutOfBoundsException("i, j must be in [1,N]");
+  }
+
+  // map from grid to row-major site index
+  private long mapGrid(int i, int j) {
+    return (long) (i - 1) * dim + (j - 1);
+  }
+
+  private boolean openBit(long p) {
+    return (getLong(open, p >>> 6) & (1L << p)) != 0;
+  }
+
+  // root of the component of p, halving the path
+  private long find(long p) {
+    long v = getLong(parent, p);
+    while (v > 0) {
+      long q = v - 1;
+      long w = getLong(parent, q);
+      if (w <= 0)
+        return q;
+      // point p at its grandparent and continue from there
+      putLong(parent, p, w);
+      p = w - 1;
+      v = getLong(parent, p);
+    }
+    return p;
+  }
+
+  // merge two roots by size, keeping the flags of both
+  private long link(long rootP, long rootQ) {
+    if (rootP == rootQ)
+      return rootP;
+    long metaP = -getLong(parent, rootP);
+    long metaQ = -getLong(parent, rootQ);
+    long meta = ((metaP & ~FLAGS) + (metaQ & ~FLAGS) + (1L << 2))
+        | ((metaP | metaQ) & FLAGS);
+    if (metaP < metaQ) {
+      putLong(parent, rootP, rootQ + 1);
+      putLong(parent, rootQ, -meta);
+      return rootQ;
+    }
+    putLong(parent, rootQ, rootP + 1);
+    putLong(parent, rootP, -meta);
+    return rootP;
+  }
+
+  private long flags(long root) {
+    return -getLong(parent, root) & FLAGS;
+  }
+
+  private void addFlags(long root, long flags) {
+    putLong(parent, root, -(-getLong(parent, root) | flags));
+  }
+
+  /**
+   * Opens site (row i, column j) if it is not open already.
+   *
+   * @param i
+   *          row in [1, N]
+   * @param j
+   *          column in [1, N]
+   */
+  public void open(int i, int j) {
+    checkIJ(i, j);
+    long site = mapGrid(i, j);
+    if (openBit(site))
+      return;
+
+    long word = site >>> 6;
+    putLong(open, word, getLong(open, word) | (1L << site));
+    openSites++;
+
+    // a new site is its own root, flag it if it is on the top or bottom row
+    long root = site;
+    if (i == 1)
+      addFlags(root, TOP);
+    if (i == dim)
+      addFlags(root, BOTTOM);
+
+    // link the site to its open neighbors, keeping track of the root
+    if (j > 1 && openBit(site - 1))
+      root = link(root, find(site - 1));
+    if (j < dim && openBit(site + 1))
+      root = link(root, find(site + 1));
+    if (i > 1 && openBit(site - dim))
+      root = link(root, find(site - dim));
+    if (i < dim && openBit(site + dim))
+      root = link(root, find(site + dim));
+
+    if (flags(root) == FLAGS)
+      sysPerc = true;
+  }
+
+  /**
+   * Is site (row i, column j) open?
+   *
+   * @param i
+   *          row in [1, N]
+   * @param j
+   *          column in [1, N]
+   * @return <tt>true</tt> if the site is open
+   */
+  public boolean isOpen(int i, int j) {
+    checkIJ(i, j);
+    return openBit(mapGrid(i, j));
+  }
+
+  /**
+   * Is site (row i, column j) full?
+   *
+   * @param i
+   *          row in [1, N]
+   * @param j
+   *          column in [1, N]
+   * @return <tt>true</tt> if the site is connected to the top row
+   */
+  public boolean isFull(int i, int j) {
+    checkIJ(i, j);
+    long site = mapGrid(i, j);
+    return openBit(site) && (flags(find(site)) & TOP) != 0;
+  }
+
+  /**
+   * Does the system percolate?
+   *
+   * @return <tt>true</tt> if some full site is on the bottom row
+   */
+  public boolean percolates() {
+    return sysPerc;
+  }
+
+  /**
+   * Returns the number of open sites.
+   *
+   * @return the number of open sites
+   */
+  public long numberOfOpenSites() {
+    return openSites;
+  }
+
+  /**
+   * Closes and deletes the backing files. The mappings stay valid until
+   * they are garbage collected, but the instance must not be used again.
+   *
+   * @throws java.io.IOException
+   *           if a file cannot be closed
+   */
+  public void close() throws IOException {
+    // close both files before deleting them, keeping the first failure
+    IOException failure = null;
+    try {
+      parentFile.close();
+    } catch (IOException e) {
+      failure = e;
+    }
+    try {
+      openFile.close();
+    } catch (IOException e) {
+      if (failure == null)
+        failure = e;
+      else
+        failure.addSuppressed(e);
+    }
+    parentPath.delete();
+    openPath.delete();
+    if (failure != null)
+      throw failure;
+  }
+
+  // test client: N [dir], opens random sites until the system percolates
+  public static void main(String[] args) throws IOException {
+    int N = Integer.parseInt(args[0]);
+    File dir = new File(args.length > 1 ? args[1]
+        : System.getProperty("java.io.tmpdir"));
+
+    SplittableRandom rnd = new SplittableRandom(1);
+    long start = System.nanoTime();
+    try (MappedPercolation perc = new MappedPercolation(N, dir)) {
+      while (!perc.percolates())
+        perc.open(1 + rnd.nextInt(N), 1 + rnd.nextInt(N));
+      double sites = (double) N * N;
+      System.out.println("threshold  = " + perc.numberOfOpenSites() / sites);
+    }
+    System.out.println("time       = "
+        + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+}
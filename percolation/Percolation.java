@@ -5,42 +5,48 @@
  * Percolation.java
  *
  * Programming Assignment 1: Percolation This data type models a percolation
- * system using Weighted Quick Union
+ * system using Weighted Quick Union. The union-find work is done by
+ * PercolationEngine, this class maps (row, column) pairs onto it
  *
  * Konstantinos Vantas k_vantas@yahoo.gr
  *
  */
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
 public class Percolation
 {
 
-  private boolean[] grid;                   // grid vector
-  private int count;                        // number of components for QU
-  private int dim;                          // dimension of grid
-  private WeightedQuickUnionUF quickUnion;  // Weighted Quick Union Find Object
-  private int topSite;                      // Virtual top site index
-  private boolean sysPerc;                  // system percolates
+  private int dim;                  // dimension of grid
+  private PercolationEngine engine; // flagged union-find percolation engine
 
   // create a NxN grid all sites blocked
   public Percolation(int N)
+  {
+    this(N, false);
+  }
+
+  // create a NxN grid all sites blocked, optionally keeping a bitset of the
+  // full sites up to date so that isFull and copyFullRows are bit reads
+  public Percolation(int N, boolean trackFull)
   {
     if (N < 1)
       throw new java.lang.IndexOutOfBoundsException("N must be > 0");
 
-    // init system
-    sysPerc = false;
-    // compute number of sites
-    count = N * N + 1;
     dim = N;
-    // create a new QUF object with indexes from 0 to N^2 + 1
-    quickUnion = new WeightedQuickUnionUF(count);
-    // set top sites
-    topSite = 0;
-    // create an new vector with all sites = False
-    grid = new boolean[count];
+    engine = new PercolationEngine(N, trackFull);
+  }
 
+  // block all sites again, reusing the arrays of this instance; a change
+  // log is detached
+  public void reset()
+  {
+    engine.reset();
+  }
+
+  // collect the sites that are opened or become full in the given log,
+  // site (i, j) is logged as (i - 1) * N + (j - 1); null detaches the log
+  public void setChangeLog(SiteChangeLog log)
+  {
+    engine.setChangeLog(log);
   }
 
   // throw an exception if i and j are outside [1,N]
@@ -50,76 +56,88 @@ public class Percolation
       throw new java.lang.IndexOutOfBoundsException("i, j must be in [1,N]");
   }
 
-  // map from grid to vector
+  // map from grid to the engine's row-major site index
   private int mapGrid(int i, int j)
   {
-    return (i + (j - 1) * dim);
+    return (i - 1) * dim + (j - 1);
   }
 
-  // is any site on the bottom connected with the top site
-  private void bottomFilled()
+  // open site (row i, column j) if it is not open already
+  public void open(int i, int j)
   {
-    for (int j = 0; j < dim; j++)
-    {
-      if (isFull(dim, j))
-      {
-        sysPerc = true;
-        break;
-      }
-    }
-  
+    checkIJ(i, j);
+    engine.open(mapGrid(i, j));
   }
 
-  // open site (row i, column j) if it is not open already
-  public void open(int i, int j)
+  // open the sites (rows[k], cols[k]) in one batch, all sites are checked
+  // before any of them is opened
+  public void openAll(int[] rows, int[] cols)
   {
-    // open site
-    if (!isOpen(i, j))
+    if (rows.length != cols.length)
+      throw new java.lang.IllegalArgumentException("rows and cols differ");
+    int[] batch = new int[rows.length];
+    for (int k = 0; k < rows.length; k++)
     {
-      grid[mapGrid(i, j)] = true;
-      bottomFilled();
+      checkIJ(rows[k], cols[k]);
+      batch[k] = mapGrid(rows[k], cols[k]);
     }
-    else
-      return;
-
-    // convert grid to index
-    int index = mapGrid(i, j);
-
-    // link the site to its open neighbors
-    // left
-    if (j > 1 && isOpen(i, j - 1))
-      quickUnion.union(index, mapGrid(i, j - 1));
-    // right
-    if (j < dim && isOpen(i, j + 1))
-      quickUnion.union(index, mapGrid(i, j + 1));
-    // top
-    if (i == 1)
-      quickUnion.union(index, topSite);
-    else if (isOpen(i - 1, j))
-      quickUnion.union(index, mapGrid(i - 1, j));
-    // bottom
-    if (!(i == dim) && isOpen(i + 1, j))
-      quickUnion.union(index, mapGrid(i + 1, j));
+    engine.openAll(batch);
+  }
+
+  // open a batch of sites given by row-major index (i - 1) * N + (j - 1)
+  public void openAll(int[] sites)
+  {
+    engine.openAll(sites);
   }
 
   // is site (row i, column j) open?
   public boolean isOpen(int i, int j)
   {
     checkIJ(i, j);
-    return grid[mapGrid(i, j)];
+    return engine.isOpen(mapGrid(i, j));
   }
 
   // is site (row i, column j) full?
   public boolean isFull(int i, int j)
   {
     checkIJ(i, j);
-    return (quickUnion.connected(mapGrid(i, j), topSite));
+    return engine.isFull(mapGrid(i, j));
+  }
+
+  // number of open sites
+  public int numberOfOpenSites()
+  {
+    return engine.numberOfOpenSites();
   }
 
   // does the system percolate?
   public boolean percolates()
   {
-    return sysPerc;
+    return engine.percolates();
+  }
+
+  // number of words needed to copy the given number of rows
+  public int wordsPerRows(int rows)
+  {
+    return (int) (((long) rows * dim + 63) >>> 6);
+  }
+
+  // copy the open bits of rows fromRow to toRow into dst, site (i, j) goes
+  // to bit (i - fromRow) * N + (j - 1) counted from the start of dst
+  public void copyOpenRows(int fromRow, int toRow, long[] dst)
+  {
+    checkIJ(fromRow, 1);
+    checkIJ(toRow, 1);
+    engine.copyOpen(mapGrid(fromRow, 1), mapGrid(toRow, dim) + 1, dst);
+  }
+
+  // copy the full bits of rows fromRow to toRow into dst, laid out as in
+  // copyOpenRows
+  public void copyFullRows(int fromRow, int toRow, long[] dst)
+  {
+    checkIJ(fromRow, 1);
+    checkIJ(toRow, 1);
+    engine.copyFull(mapGrid(fromRow, 1), mapGrid(toRow, dim) + 1, dst);
   }
 
   // test client
@@ -151,5 +169,14 @@ public class Percolation
 
     System.out.println("Check if p1 percolates");
     System.out.println(p1.percolates());
+
+    System.out.println("Reset p1");
+    p1.reset();
+
+    System.out.println("Check if 3, 1 is open");
+    System.out.println(p1.isOpen(3, 1));
+
+    System.out.println("Check if p1 percolates");
+    System.out.println(p1.percolates());
   }
 }
@@ -0,0 +1,495 @@
+/*
+ * PercolationEngine.java
+ *
+ * Site percolation on a Lattice addressed by linear site index; the N-by-N
+ * constructors use a SquareLattice (row-major, 0-based, site = row * N +
+ * col), other lattices such as CubicLattice run on the same engine.
+ *
+ * Every union-find root carries two flags recording whether its component
+ * touches the top or the bottom of the system. A site is full when its root
+ * touches the top, and the system percolates as soon as a single root
+ * touches both. This replaces the virtual top site and the bottom row scan:
+ * open, isFull and percolates are amortized near-constant and fullness never
+ * leaks back through the bottom (no backwash).
+ *
+ * The components live in a GridUnionFind, which packs parent links, sizes
+ * and the flags in one int per site. Open sites are kept in a bitset in
+ * site order; optionally a second bitset of full sites is kept up to date by
+ * flooding every component that gets connected to the top, which marks
+ * each site at most once. Renderers can copy ranges of either bitset into
+ * their own buffers and read the state 64 sites at a time.
+ *
+ * A ClusterStatistics object can be attached to follow the cluster sizes;
+ * the engine reports each opened site and each union of two components. A
+ * SiteChangeLog can be attached to collect the sites that were opened or
+ * became full, so a renderer only repaints those.
+ *
+ */
+
+import java.util.Arrays;
+
+public class PercolationEngine {
+
+  private static final int TOP    = GridUnionFind.TOP;
+  private static final int BOTTOM = GridUnionFind.BOTTOM;
+
+  private Lattice lattice;                // sites and their neighbors
+  private int sites;                      // number of sites
+  private int[] adj;                      // neighbors of the current site
+  private final long[] open;              // bitset of open sites
+  private final long[] full;              // bitset of full sites, or null
+  private final GridUnionFind uf;         // components of open sites
+  private int[] stack;                    // flood fill stack for full
+  private ClusterStatistics clusters;     // cluster sizes, or null
+  private SiteChangeLog changes;          // changed sites, or null
+  private int openSites;                  // number of open sites
+  private boolean sysPerc;                // system percolates
+
+  /**
+   * Creates an N-by-N grid with all sites blocked.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 23170]
+   */
+  public PercolationEngine(int N) {
+    this(N, false);
+  }
+
+  /**
+   * Creates an N-by-N grid with all sites blocked, optionally keeping a
+   * bitset of the full sites up to date.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @param trackFull
+   *          maintain the full bitset on every open
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 23170]
+   */
+  public PercolationEngine(int N, boolean trackFull) {
+    this(new SquareLattice(N), trackFull);
+  }
+
+  /**
+   * Creates a system on the given lattice with all sites blocked,
+   * optionally keeping a bitset of the full sites up to date.
+   *
+   * @param lattice
+   *          the lattice
+   * @param trackFull
+   *          maintain the full bitset on every open
+   * @throws java.lang.IllegalArgumentException
+   *           if the lattice has more than 2^29 sites
+   */
+  public PercolationEngine(Lattice lattice, boolean trackFull) {
+    if (lattice == null)
+      throw new java.lang.NullPointerException("Null lattice");
+    if (lattice.size() > GridUnionFind.MAX_SITES)
+      throw new java.lang.IllegalArgumentException("more than 2^29 sites");
+
+    this.lattice = lattice;
+    sites = lattice.size();
+    adj = new int[lattice.degree()];
+    open = new long[(sites + 63) >>> 6];
+    full = trackFull ? new long[open.length] : null;
+    uf = new GridUnionFind(sites);
+    stack = trackFull ? new int[16] : null;
+    openSites = 0;
+    sysPerc = false;
+  }
+
+  /**
+   * Blocks all sites again, so the engine can run another trial on the same
+   * lattice without allocating; attached cluster statistics and change
+   * logs are detached.
+   */
+  public void reset() {
+    reset(lattice);
+  }
+
+  /**
+   * Blocks all sites again and switches to the given lattice, reusing the
+   * arrays of this engine; only the first lattice.size() entries are
+   * cleared, so a worker can keep one engine sized for its largest lattice.
+   * Attached cluster statistics and change logs are detached.
+   *
+   * @param lattice
+   *          the new lattice
+   * @throws java.lang.IllegalArgumentException
+   *           if the lattice has more sites than the engine was created for
+   */
+  public void reset(Lattice lattice) {
+    if (lattice == null)
+      throw new java.lang.NullPointerException("Null lattice");
+    if (lattice.size() > uf.capacity())
+      throw new java.lang.IllegalArgumentException("lattice too large");
+
+    // clear the state of the sites in use by the old and the new lattice
+    int n = Math.max(sites, lattice.size());
+    int words = (n + 63) >>> 6;
+    Arrays.fill(open, 0, words, 0L);
+    if (full != null)
+      Arrays.fill(full, 0, words, 0L);
+    uf.reset(n);
+
+    this.lattice = lattice;
+    sites = lattice.size();
+    if (adj.length < lattice.degree())
+      adj = new int[lattice.degree()];
+    clusters = null;
+    changes = null;
+    openSites = 0;
+    sysPerc = false;
+  }
+
+  /**
+   * Returns the lattice of the system.
+   *
+   * @return the lattice
+   */
+  public Lattice lattice() {
+    return lattice;
+  }
+
+  /**
+   * Returns the number of sites.
+   *
+   * @return the number of sites
+   */
+  public int size() {
+    return sites;
+  }
+
+  /**
+   * Returns the number of open sites.
+   *
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSites;
+  }
+
+  /**
+   * Attaches cluster statistics that are updated on every open, or detaches
+   * them with null. The statistics should start out describing the current
+   * open sites, i.e. empty for a new system.
+   *
+   * @param stats
+   *          the cluster statistics, or null
+   */
+  public void setClusterStatistics(ClusterStatistics stats) {
+    clusters = stats;
+  }
+
+  /**
+   * Attaches a log that collects every site that is opened and, when the
+   * full bitset is tracked, every site that becomes full; null detaches it.
+   *
+   * @param log
+   *          the change log, or null
+   */
+  public void setChangeLog(SiteChangeLog log) {
+    changes = log;
+  }
+
+  // union of two roots, reported to the cluster statistics
+  private int link(int root, int other) {
+    if (clusters != null && root != other)
+      clusters.merged(uf.size(root), uf.size(other));
+    return uf.link(root, other);
+  }
+
+  // throw an exception if site is outside [0, size())
+  private void checkSite(int site) {
+    if (site < 0 || site >= sites)
+      throw new java.lang.IndexOutOfBoundsException("site out of range");
+  }
+
+  /**
+   * Opens the site if it is not open already.
+   *
+   * @param site
+   *          the linear index of the site
+   */
+  public void open(int site) {
+    checkSite(site);
+    if (get(open, site))
+      return;
+
+    open[site >>> 6] |= 1L << site;
+    openSites++;
+    if (clusters != null)
+      clusters.opened();
+    if (changes != null)
+      changes.add(site);
+
+    // a new site is its own root, flag it if it is on the top or bottom
+    int root = site;
+    if (lattice.isTop(site))
+      uf.addFlags(root, TOP);
+    if (lattice.isBottom(site))
+      uf.addFlags(root, BOTTOM);
+
+    // link the site to its open neighbors, keeping track of the root
+    int n = lattice.neighbors(site, adj);
+    for (int k = 0; k < n; k++) {
+      int q = adj[k];
+      if (get(open, q))
+        root = link(root, uf.find(q));
+    }
+
+    // the merged component carries the flags of all its parts
+    int flags = uf.flags(root);
+    if (flags == (TOP | BOTTOM))
+      sysPerc = true;
+    if (full != null && (flags & TOP) != 0)
+      fill(site);
+  }
+
+  // is bit i of the bitset set?
+  private static boolean get(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // mark the open sites reachable from site through sites that are not
+  // yet full as full; sites that are already full stop the flood
+  private void fill(int site) {
+    int n = 0;
+    full[site >>> 6] |= 1L << site;
+    if (changes != null)
+      changes.add(site);
+    stack[n++] = site;
+    while (n > 0) {
+      int p = stack[--n];
+      int m = lattice.neighbors(p, adj);
+      for (int k = 0; k < m; k++)
+        n = push(adj[k], n);
+    }
+  }
+
+  // push site on the flood fill stack if it is open and not full
+  private int push(int p, int n) {
+    if (!get(open, p) || get(full, p))
+      return n;
+    full[p >>> 6] |= 1L << p;
+    if (changes != null)
+      changes.add(p);
+    if (n == stack.length)
+      stack = Arrays.copyOf(stack, 2 * n);
+    stack[n] = p;
+    return n + 1;
+  }
+
+  /**
+   * Opens a batch of sites. All sites are validated before any of them is
+   * opened; the new sites are then marked in a bitset and linked in one
+   * sweep in site order, where each new site links to its open neighbors
+   * with a lower index and only to old open sites with a higher index (new
+   * ones there link back when the sweep reaches them).
+   *
+   * @param batch
+   *          the linear indices of the sites, repeats are allowed
+   * @throws java.lang.IndexOutOfBoundsException
+   *           if any site is outside [0, size())
+   */
+  public void openAll(int[] batch) {
+    for (int k = 0; k < batch.length; k++)
+      checkSite(batch[k]);
+
+    // mark the sites that are new in this batch
+    long[] added = new long[(sites + 63) >>> 6];
+    for (int k = 0; k < batch.length; k++) {
+      int p = batch[k];
+      if (!get(open, p) && !get(added, p)) {
+        added[p >>> 6] |= 1L << p;
+        openSites++;
+        if (clusters != null)
+          clusters.opened();
+        if (changes != null)
+          changes.add(p);
+      }
+    }
+    for (int w = 0; w < added.length; w++)
+      open[w] |= added[w];
+
+    // link the new sites in site order
+    boolean anyTop = false;
+    for (int w = 0; w < added.length; w++) {
+      for (long bits = added[w]; bits != 0; bits &= bits - 1) {
+        int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+        int root = uf.find(p);
+        if (lattice.isTop(p))
+          uf.addFlags(root, TOP);
+        if (lattice.isBottom(p))
+          uf.addFlags(root, BOTTOM);
+
+        int n = lattice.neighbors(p, adj);
+        for (int k = 0; k < n; k++) {
+          int q = adj[k];
+          if (get(open, q) && (q < p || !get(added, q)))
+            root = link(root, uf.find(q));
+        }
+
+        int flags = uf.flags(root);
+        if (flags == (TOP | BOTTOM))
+          sysPerc = true;
+        anyTop |= (flags & TOP) != 0;
+      }
+    }
+
+    // flood the components that reached the top
+    if (full == null || !anyTop)
+      return;
+    for (int w = 0; w < added.length; w++) {
+      for (long bits = added[w]; bits != 0; bits &= bits - 1) {
+        int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+        if (!get(full, p) && (uf.flags(uf.find(p)) & TOP) != 0)
+          fill(p);
+      }
+    }
+  }
+
+  /**
+   * Is the site open?
+   *
+   * @param site
+   *          the linear index of the site
+   * @return <tt>true</tt> if the site is open; <tt>false</tt> otherwise
+   */
+  public boolean isOpen(int site) {
+    checkSite(site);
+    return get(open, site);
+  }
+
+  /**
+   * Is the site full, i.e. connected to the top through open sites?
+   *
+   * @param site
+   *          the linear index of the site
+   * @return <tt>true</tt> if the site is full; <tt>false</tt> otherwise
+   */
+  public boolean isFull(int site) {
+    checkSite(site);
+    if (full != null)
+      return get(full, site);
+    return get(open, site) && (uf.flags(uf.find(site)) & TOP) != 0;
+  }
+
+  /**
+   * Is the full bitset maintained on every open?
+   *
+   * @return <tt>true</tt> if full sites are tracked
+   */
+  public boolean tracksFull() {
+    return full != null;
+  }
+
+  // throw an exception if [from, to) is not a site range or dst is too small
+  private void checkRange(int from, int to, long[] dst) {
+    if (from < 0 || to > sites || from > to)
+      throw new java.lang.IndexOutOfBoundsException("bad site range");
+    if (dst.length < ((to - from + 63) >>> 6))
+      throw new java.lang.IllegalArgumentException("buffer too small");
+  }
+
+  /**
+   * Copies the open bits of the sites [from, to) into dst; site from + k
+   * goes to bit k % 64 of dst[k / 64] and the unused high bits of the last
+   * word are cleared.
+   *
+   * @param from
+   *          the first site
+   * @param to
+   *          one past the last site
+   * @param dst
+   *          buffer of at least (to - from + 63) / 64 words
+   */
+  public void copyOpen(int from, int to, long[] dst) {
+    checkRange(from, to, dst);
+    copyBits(open, from, to, dst);
+  }
+
+  /**
+   * Copies the full bits of the sites [from, to) into dst, laid out as in
+   * copyOpen. Without full tracking every site is checked with a find.
+   *
+   * @param from
+   *          the first site
+   * @param to
+   *          one past the last site
+   * @param dst
+   *          buffer of at least (to - from + 63) / 64 words
+   */
+  public void copyFull(int from, int to, long[] dst) {
+    checkRange(from, to, dst);
+    if (full != null) {
+      copyBits(full, from, to, dst);
+      return;
+    }
+    Arrays.fill(dst, 0, (to - from + 63) >>> 6, 0L);
+    for (int p = from; p < to; p++)
+      if (get(open, p) && (uf.flags(uf.find(p)) & TOP) != 0)
+        dst[(p - from) >>> 6] |= 1L << (p - from);
+  }
+
+  // copy bits [from, to) of src to the start of dst
+  private static void copyBits(long[] src, int from, int to, long[] dst) {
+    int words = (to - from + 63) >>> 6;
+    int shift = from & 63;
+    int w = from >>> 6;
+    for (int k = 0; k < words; k++, w++) {
+      long bits = src[w] >>> shift;
+      if (shift != 0 && w + 1 < src.length)
+        bits |= src[w + 1] << (64 - shift);
+      dst[k] = bits;
+    }
+    // clear the bits past to
+    int tail = (to - from) & 63;
+    if (tail != 0)
+      dst[words - 1] &= (1L << tail) - 1;
+  }
+
+  /**
+   * Does the system percolate?
+   *
+   * @return <tt>true</tt> if some full site is on the bottom
+   */
+  public boolean percolates() {
+    return sysPerc;
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+    int N = 3;
+    PercolationEngine e = new PercolationEngine(N);
+
+    // open the first column, then a stray bottom site
+    e.open(0);
+    e.open(3);
+    System.out.println("site 3 full:     " + e.isFull(3));
+    System.out.println("percolates:      " + e.percolates());
+    e.open(8);
+    System.out.println("site 8 full:     " + e.isFull(8));
+    e.open(6);
+    System.out.println("percolates:      " + e.percolates());
+
+    // no backwash: site 8 touches the bottom only
+    System.out.println("site 8 full:     " + e.isFull(8));
+
+    // full tracking and bulk copies: open a U shape and read the rows
+    PercolationEngine t = new PercolationEngine(N, true);
+    int[] u = { 3, 6, 7, 8, 5 };
+    for (int k = 0; k < u.length; k++)
+      t.open(u[k]);
+    long[] buf = new long[1];
+    t.copyFull(0, 9, buf);
+    System.out.println("full before top: " + Long.toBinaryString(buf[0]));
+    t.open(0);
+    t.copyFull(0, 9, buf);
+    System.out.println("full after top:  " + Long.toBinaryString(buf[0]));
+    t.copyOpen(3, 9, buf);
+    System.out.println("open rows 2-3:   " + Long.toBinaryString(buf[0]));
+  }
+}
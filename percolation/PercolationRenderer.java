@@ -0,0 +1,193 @@
+/******************************************************************************
+ * Compilation: javac PercolationRenderer.java Execution: java
+ * PercolationRenderer input.txt [fps [opens per second]] Dependencies:
+ * Percolation.java SiteChangeLog.java
+ *
+ * Incremental renderer for percolation systems. The grid is kept in an
+ * offscreen BufferedImage, and a SiteChangeLog attached to the Percolation
+ * collects the sites that were opened or became full. A Swing timer drains
+ * the log at a fixed frame rate and repaints only those cells. A frame
+ * costs time in proportion to the sites that changed since the last frame,
+ * and the frame rate does not depend on how fast sites are opened.
+ *
+ * Sites are opened through the renderer. The renderer locks the
+ * Percolation against the timer, so sites can be opened from any thread.
+ * The colors are those of PercolationVisualizer: full sites in light blue,
+ * open sites (that aren't full) in white and blocked sites in black.
+ ******************************************************************************/
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import edu.princeton.cs.algs4.In;
+
+public class PercolationRenderer
+{
+
+  // StdDraw.BOOK_LIGHT_BLUE; StdDraw itself opens a window when loaded
+  private static final Color FULL = new Color(103, 198, 243);
+
+  private final Percolation perc;       // the system, tracking full sites
+  private final int dim;                // dimension of grid
+  private final int cell;               // size of a cell in pixels
+  private final BufferedImage image;    // the grid, one cell per site
+  private final SiteChangeLog changes;  // sites changed since last frame
+  private int opened;                   // number of open sites
+  private Timer timer;                  // frame timer, once started
+  private JLabel status;                // status text, once started
+
+  // render a new N-by-N system with all sites blocked; the renderer builds
+  // the Percolation itself so that it tracks full sites, which the change
+  // log needs to report the sites that become full
+  public PercolationRenderer(int N, int cell)
+  {
+    if (N < 1 || cell < 1)
+      throw new java.lang.IllegalArgumentException();
+
+    perc = new Percolation(N, true);
+    dim = N;
+    this.cell = cell;
+    image = new BufferedImage(N * cell, N * cell, BufferedImage.TYPE_INT_RGB);
+    changes = new SiteChangeLog();
+    perc.setChangeLog(changes);
+    opened = 0;
+
+    // a new image is black, i.e. all sites blocked
+  }
+
+  // open site (row i, column j) if it is not open already
+  public synchronized void open(int i, int j)
+  {
+    if (!perc.isOpen(i, j))
+      opened++;
+    perc.open(i, j);
+  }
+
+  // number of open sites
+  public synchronized int numberOfOpenSites()
+  {
+    return opened;
+  }
+
+  // does the system percolate?
+  public synchronized boolean percolates()
+  {
+    return perc.percolates();
+  }
+
+  // paint the cells of the sites changed since the last call into the
+  // image and return the number of cells painted
+  public synchronized int flush()
+  {
+    int n = changes.size();
+    Graphics2D g = image.createGraphics();
+    try
+    {
+      // leave a one pixel gap between cells that are large enough
+      int size = (cell > 2) ? cell - 1 : cell;
+      for (int k = 0; k < n; k++)
+      {
+        int site = changes.get(k);
+        int i = site / dim + 1;
+        int j = site % dim + 1;
+        if (perc.isFull(i, j))
+          g.setColor(FULL);
+        else if (perc.isOpen(i, j))
+          g.setColor(Color.WHITE);
+        else
+          g.setColor(Color.BLACK);
+        g.fillRect((j - 1) * cell, (i - 1) * cell, size, size);
+      }
+    }
+    finally
+    {
+      g.dispose();
+    }
+    changes.clear();
+    return n;
+  }
+
+  // the offscreen image of the grid
+  public BufferedImage image()
+  {
+    return image;
+  }
+
+  // show the grid in a window and repaint it fps times per second
+  public void start(final int fps)
+  {
+    if (fps < 1)
+      throw new java.lang.IllegalArgumentException("fps must be > 0");
+    SwingUtilities.invokeLater(() -> {
+      final JPanel panel = new JPanel()
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void paintComponent(Graphics g)
+        {
+          super.paintComponent(g);
+          g.drawImage(image, 0, 0, null);
+        }
+      };
+      panel.setPreferredSize(new Dimension(image.getWidth(),
+          image.getHeight()));
+      status = new JLabel(" ");
+
+      JFrame frame = new JFrame("Percolation");
+      frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+      frame.add(panel, BorderLayout.CENTER);
+      frame.add(status, BorderLayout.SOUTH);
+      frame.pack();
+      frame.setVisible(true);
+
+      // the timer fires on the event thread, which also paints the image
+      timer = new Timer(1000 / fps, e -> {
+        if (flush() > 0)
+          panel.repaint();
+        status.setText(numberOfOpenSites() + " open sites, "
+            + (percolates() ? "percolates" : "does not percolate"));
+      });
+      timer.start();
+    });
+  }
+
+  public static void main(String[] args) throws InterruptedException
+  {
+    In in = new In(args[0]); // input file
+    int N = in.readInt(); // N-by-N percolation system
+    int fps = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    int rate = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+    // repeatedly read in sites to open, at the given rate if it is > 0
+    PercolationRenderer renderer = new PercolationRenderer(N,
+        Math.max(1, 600 / N));
+    renderer.start(fps);
+    long start = System.nanoTime();
+    long opens = 0;
+    while (!in.isEmpty())
+    {
+      int i = in.readInt();
+      int j = in.readInt();
+      renderer.open(i, j);
+      opens++;
+      if (rate > 0)
+      {
+        long due = start + opens * 1000000000L / rate;
+        long wait = due - System.nanoTime();
+        if (wait > 0)
+          Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+      }
+    }
+  }
+}
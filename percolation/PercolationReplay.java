@@ -0,0 +1,136 @@
+/*
+ * PercolationReplay.java
+ *
+ * Headless replay of percolation input files, the N and "i j" site lists
+ * read by PercolationVisualizer. The file is parsed with IntReader and then
+ * replayed through Percolation without drawing. The tool reports the parse
+ * and replay throughput, the final state and the number of open sites at
+ * which the system first percolated.
+ *
+ * Parsing and replay are timed separately: all sites are read into an
+ * array first, so the open rate measures Percolation alone.
+ *
+ * Execution: java PercolationReplay input.txt [repeats]
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class PercolationReplay {
+
+  private final int dim;         // dimension of grid
+  private final int[] rows;      // rows of the sites to open, in file order
+  private final int[] cols;      // columns of the sites to open
+  private final long parseNanos; // time spent reading the file
+
+  /**
+   * Reads an input file of N followed by pairs i j.
+   *
+   * @param file
+   *          the input file
+   * @throws java.io.IOException
+   *           if the file cannot be read
+   * @throws java.util.InputMismatchException
+   *           if the file holds anything but ints
+   */
+  public PercolationReplay(File file) throws IOException {
+    long start = System.nanoTime();
+    try (IntReader in = new IntReader(file)) {
+      dim = in.readInt();
+      int[] r = new int[1024];
+      int[] c = new int[1024];
+      int n = 0;
+      while (in.hasNext()) {
+        if (n == r.length) {
+          r = Arrays.copyOf(r, 2 * n);
+          c = Arrays.copyOf(c, 2 * n);
+        }
+        r[n] = in.readInt();
+        c[n] = in.readInt();
+        n++;
+      }
+      rows = Arrays.copyOf(r, n);
+      cols = Arrays.copyOf(c, n);
+    }
+    parseNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Returns the dimension of the grid given in the file.
+   *
+   * @return N
+   */
+  public int dimension() {
+    return dim;
+  }
+
+  /**
+   * Returns the number of sites listed in the file, repeats included.
+   *
+   * @return the number of opens
+   */
+  public int opens() {
+    return rows.length;
+  }
+
+  /**
+   * Returns the time spent reading the file.
+   *
+   * @return nanoseconds
+   */
+  public long parseNanos() {
+    return parseNanos;
+  }
+
+  /**
+   * Opens the sites of the file in order on the given system.
+   *
+   * @param perc
+   *          an N-by-N system
+   * @return the number of open sites when the system first percolated, or
+   *         -1 if it never did
+   */
+  public int replay(Percolation perc) {
+    int firstPercolation = -1;
+    for (int k = 0; k < rows.length; k++) {
+      perc.open(rows[k], cols[k]);
+      if (firstPercolation < 0 && perc.percolates())
+        firstPercolation = perc.numberOfOpenSites();
+    }
+    return firstPercolation;
+  }
+
+  // test client: input.txt [repeats], replays the file repeats times and
+  // reports the best replay
+  public static void main(String[] args) throws IOException {
+    PercolationReplay replay = new PercolationReplay(new File(args[0]));
+    int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    int N = replay.dimension();
+
+    long best = Long.MAX_VALUE;
+    Percolation perc = new Percolation(N);
+    int first = -1;
+    for (int r = 0; r < repeats; r++) {
+      perc.reset();
+      long start = System.nanoTime();
+      first = replay.replay(perc);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+
+    long bytes = new File(args[0]).length();
+    StdOut.println("grid                    = " + N + "x" + N);
+    StdOut.println("opens                   = " + replay.opens());
+    StdOut.printf("parse                   = %.1f ms (%.1f MB/s)%n",
+        replay.parseNanos() / 1e6, bytes / (replay.parseNanos() / 1e9) / 1e6);
+    StdOut.printf("replay                  = %.1f ms (%.0f opens/s)%n",
+        best / 1e6, replay.opens() / (best / 1e9));
+    StdOut.println("open sites              = " + perc.numberOfOpenSites());
+    StdOut.println("percolates              = " + perc.percolates());
+    StdOut.println("first percolated at     = "
+        + (first < 0 ? "never" : first + " open sites"));
+  }
+}
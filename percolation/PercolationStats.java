@@ -8,65 +8,361 @@
  * This data type estimates the percolation threshold using Monte Carlo 
  * simulation
  * 
+ * Every trial draws its sites from its own SplittableRandom, seeded from
+ * the master seed and the trial index only, so the trials can run on a
+ * fork/join pool and still give bit-for-bit the same results for any
+ * number of threads.
+ * 
+ * Instead of a fixed number of trials the estimate can also be run until
+ * the 95% confidence interval is narrower than a target width, or a time
+ * budget runs out. Results are then folded into a ThresholdEstimator in
+ * trial order, so memory stays O(1) in the number of trials.
+ * 
+ * A trial either opens sites one by one until the system percolates
+ * (Strategy.INCREMENTAL) or binary searches the number of open sites over
+ * the same opening order with ThresholdSearch (Strategy.BISECTION); both
+ * give the same result for the same seed.
+ * 
+ * The N-by-N constructors run on a SquareLattice; every constructor also
+ * has a Lattice form, so threshold studies on cubic, triangular or
+ * hexagonal lattices use the same driver.
+ * 
+ * A fixed-T run can write every finished trial to a TrialCheckpoint file;
+ * running again with the same file resumes the campaign, skipping the
+ * trials that are already in it.
+ * 
+ * Each worker thread of a run keeps one PercolationEngine, SitePermutation
+ * and ThresholdSearch and resets them between trials, so a run allocates
+ * its grids once per thread instead of once per trial.
+ * 
  * Konstantinos Vantas: k_vantas@yahoo.gr
  * 
  */
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 
 public class PercolationStats {
   
+  // golden ratio increment used to spread trial indices over seeds
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  // trials per fork/join leaf task
+  private static final int TRIALS_PER_TASK = 4;
+  // trials a width run makes before it trusts the interval width
+  private static final int MIN_WIDTH_TRIALS = 30;
+
+  // how a single trial finds its threshold
+  public enum Strategy {
+    INCREMENTAL,  // open sites one at a time with PercolationEngine
+    BISECTION     // binary search over the order with ThresholdSearch
+  }
+
   private int simRuns;
-  private double[] simResults;
+  private double[] simResults;            // results of a fixed-T run
+  private ThresholdEstimator estimator;   // running results of a width run
 
   // perform T independent experiments on an N-by-N grid
   public PercolationStats(int N, int T) {
+    this(N, T, masterSeed(), 1);
+  }
+
+  // perform T independent experiments on an N-by-N grid using the given
+  // number of threads, trial i draws its sites from trialSeed(seed, i)
+  public PercolationStats(int N, int T, long seed, int threads) {
+    this(N, T, seed, threads, Strategy.INCREMENTAL);
+  }
+
+  // perform T independent experiments on an N-by-N grid using the given
+  // number of threads and trial strategy
+  public PercolationStats(int N, int T, long seed, int threads,
+      Strategy strategy) {
+    this(lattice(N), T, seed, threads, strategy);
+  }
+
+  // perform T independent experiments on the given lattice using the given
+  // number of threads and trial strategy
+  public PercolationStats(Lattice lattice, int T, long seed, int threads,
+      Strategy strategy) {
     
-    // check N and T
-    if ((N <= 0) || (T <= 0))
+    // check lattice, T and threads
+    if ((lattice == null) || (T <= 0) || (threads <= 0) || (strategy == null))
       throw new java.lang.IllegalArgumentException();
     
-    // compute sites
-    int sites = N * N;
+    simulate(lattice, T, seed, threads, strategy, null);
+  }
+
+  // perform T independent experiments on the given lattice, recording each
+  // finished trial in the checkpoint file and skipping the trials that the
+  // file already holds
+  public PercolationStats(Lattice lattice, int T, long seed, int threads,
+      Strategy strategy, File checkpoint) throws IOException {
+
+    // check lattice, T, threads and checkpoint
+    if ((lattice == null) || (T <= 0) || (threads <= 0) || (strategy == null)
+        || (checkpoint == null))
+      throw new java.lang.IllegalArgumentException();
+
+    try (TrialCheckpoint cp = new TrialCheckpoint(checkpoint, seed, lattice)) {
+      simulate(lattice, T, seed, threads, strategy, cp);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  // perform T experiments, cp may be null
+  private void simulate(Lattice lattice, int T, long seed, int threads,
+      Strategy strategy, TrialCheckpoint cp) {
     
     // save number of runs and simulation results
     simRuns = T;
     simResults = new double[T];
     
     // perform T experiments
-    for (int i = 0; i < T; i++)
-      simResults[i] = monteCarlo(N) / ((double) sites);
+    ThreadLocal<Worker> workers = workers(lattice);
+    ForkJoinPool pool = (threads == 1) ? null : new ForkJoinPool(threads);
+    try {
+      runTrials(pool, new Trials(lattice, workers, seed, strategy, cp,
+          simResults, 0, 0, T));
+    } finally {
+      release(pool, workers);
+    }
     
   }
 
-  // Monte Carlo simulation
-  private int monteCarlo(int N) {
+  // perform experiments on an N-by-N grid until the 95% confidence interval
+  // is narrower than width or, if budget > 0, budget milliseconds have
+  // passed; trials are launched in rounds of a few trials per thread, but
+  // without a budget the trials used are the same for any thread count;
+  // the width is only tested from the 30th trial on, since a few equal
+  // thresholds, common on small grids, give a degenerate zero width
+  public PercolationStats(int N, double width, long budget, long seed,
+      int threads) {
+    this(lattice(N), width, budget, seed, threads);
+  }
+
+  // perform experiments on the given lattice until the 95% confidence
+  // interval is narrower than width or the budget has passed
+  public PercolationStats(Lattice lattice, double width, long budget,
+      long seed, int threads) {
+
+    // check lattice, width and threads
+    if ((lattice == null) || !(width > 0) || (threads <= 0))
+      throw new java.lang.IllegalArgumentException();
+
+    long deadline = System.currentTimeMillis() + budget;
+    double[] round = new double[threads * TRIALS_PER_TASK];
+    estimator = new ThresholdEstimator();
+    ThreadLocal<Worker> workers = workers(lattice);
+
+    ForkJoinPool pool = (threads == 1) ? null : new ForkJoinPool(threads);
+    try {
+      int first = 0;
+      boolean narrow = false;
+      do {
+        runTrials(pool, new Trials(lattice, workers, seed,
+            Strategy.INCREMENTAL, null, round, first, first,
+            first + round.length));
+        // fold the round in trial order and stop at the first trial that
+        // makes the interval narrow enough, dropping the rest of the round,
+        // so the trials used do not depend on the thread count
+        for (int i = 0; i < round.length && !narrow; i++) {
+          estimator.add(round[i]);
+          narrow = estimator.count() >= MIN_WIDTH_TRIALS
+              && estimator.width() < width;
+        }
+        first += round.length;
+      } while (!narrow
+          && (budget <= 0 || System.currentTimeMillis() < deadline));
+    } finally {
+      release(pool, workers);
+    }
+
+    simRuns = (int) estimator.count();
+  }
+
+  // run a trial task inline or on the pool
+  private static void runTrials(ForkJoinPool pool, Trials trials) {
+    if (pool == null)
+      trials.compute();
+    else
+      pool.invoke(trials);
+  }
+
+  // end a run: the pool threads die with their buffers, a serial run
+  // drops the buffers of the calling thread, which outlives the run
+  private static void release(ForkJoinPool pool, ThreadLocal<Worker> workers) {
+    if (pool != null)
+      pool.shutdown();
+    else
+      workers.remove();
+  }
+
+  // square lattice of an N-by-N grid, N is checked by the callers
+  private static Lattice lattice(int N) {
+    return (N <= 0) ? null : new SquareLattice(N);
+  }
+
+  // statistics of the given trial results, used by PercolationSweep
+  PercolationStats(double[] results) {
+    if (results.length == 0)
+      throw new java.lang.IllegalArgumentException();
+    simRuns = results.length;
+    simResults = results;
+  }
 
-    // initialize values for index and count sites
-    int i, j;
-    int count = 0;
+  // draw a master seed from StdRandom, so StdRandom.setSeed still makes
+  // the serial constructor reproducible
+  static long masterSeed() {
+    return ((long) StdRandom.uniform(Integer.MAX_VALUE) << 32)
+        ^ StdRandom.uniform(Integer.MAX_VALUE);
+  }
 
-    // new percolation object
-    Percolation perc = new Percolation(N);
+  // seed of trial i, depends only on the master seed and i
+  static long trialSeed(long seed, int trial) {
+    return new SplittableRandom(seed + trial * GOLDEN_GAMMA).nextLong();
+  }
 
-    while (!perc.percolates()) {
-      // Choose a site uniformly at random
-      i = (int) StdRandom.uniform(1, N + 1);
-      j = (int) StdRandom.uniform(1, N + 1);
-      
-      // count only if is random site is not open
-      if (!perc.isOpen(i, j)) {
-        perc.open(i, j);
-        count++;
+  // trial buffers of one worker thread, reset for every trial
+  private static class Worker {
+    private final PercolationEngine perc;
+    private final SitePermutation order;
+    private ThresholdSearch search;       // created on the first bisection
+
+    Worker(Lattice lattice) {
+      perc = new PercolationEngine(lattice, false);
+      order = new SitePermutation(lattice.size(), new SplittableRandom(0));
+    }
+  }
+
+  // per-thread buffers of a run; pool threads end with the run and the
+  // calling thread's entry is removed by release, so no grid outlives it
+  private static ThreadLocal<Worker> workers(final Lattice lattice) {
+    return ThreadLocal.withInitial(() -> new Worker(lattice));
+  }
+
+  // fork/join task running the trials [lo, hi), trial i is stored in
+  // results[i - base]
+  private static class Trials extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Lattice lattice;
+    private final transient ThreadLocal<Worker> workers;
+    private final long seed;
+    private final Strategy strategy;
+    private final TrialCheckpoint cp;
+    private final double[] results;
+    private final int base, lo, hi;
+
+    Trials(Lattice lattice, ThreadLocal<Worker> workers, long seed,
+        Strategy strategy, TrialCheckpoint cp, double[] results, int base,
+        int lo, int hi) {
+      this.lattice = lattice;
+      this.workers = workers;
+      this.seed = seed;
+      this.strategy = strategy;
+      this.cp = cp;
+      this.results = results;
+      this.base = base;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    protected void compute() {
+      if (hi - lo <= TRIALS_PER_TASK) {
+        double sites = lattice.size();
+        Worker w = workers.get();
+        for (int i = lo; i < hi; i++) {
+          // trials of an earlier run of the campaign
+          if (cp != null && cp.isDone(i)) {
+            results[i - base] = cp.result(i);
+            continue;
+          }
+          w.order.restart(new SplittableRandom(trialSeed(seed, i)));
+          if (strategy == Strategy.BISECTION) {
+            if (w.search == null)
+              w.search = new ThresholdSearch(lattice);
+            results[i - base] = w.search.threshold(w.order) / sites;
+          } else
+            results[i - base] = monteCarlo(lattice, w.perc, w.order) / sites;
+          if (cp != null)
+            record(i, results[i - base]);
+        }
+      } else {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(
+            new Trials(lattice, workers, seed, strategy, cp, results, base,
+                lo, mid),
+            new Trials(lattice, workers, seed, strategy, cp, results, base,
+                mid, hi));
       }
     }
+
+    // append a result to the checkpoint
+    private void record(int trial, double result) {
+      try {
+        cp.record(trial, result);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  // Monte Carlo simulation, opens sites in the given random order
+  private static int monteCarlo(Lattice lattice, PercolationEngine perc,
+      SitePermutation order) {
+
+    // block all sites of the engine again, no grid is allocated
+    perc.reset(lattice);
+
+    // every site drawn is still blocked, so no draw is wasted
+    while (!perc.percolates())
+      perc.open(order.next());
+
     // return the sites that are opened when the system percolates
-    return count;
+    return perc.numberOfOpenSites();
+  }
+
+  // run trial 0 of the master seed on the lattice with cluster statistics
+  // attached and return snapshots taken when the given fractions of the
+  // sites are open; fractions must be in [0, 1] and ascending
+  public static ClusterStatistics[] clusterProfile(Lattice lattice,
+      double[] fractions, long seed) {
+    int sites = lattice.size();
+    SitePermutation order = new SitePermutation(sites,
+        new SplittableRandom(trialSeed(seed, 0)));
+    PercolationEngine perc = new PercolationEngine(lattice, false);
+    ClusterStatistics stats = new ClusterStatistics();
+    perc.setClusterStatistics(stats);
+
+    ClusterStatistics[] profile = new ClusterStatistics[fractions.length];
+    for (int i = 0; i < fractions.length; i++) {
+      if (!(fractions[i] >= 0 && fractions[i] <= 1)
+          || (i > 0 && fractions[i] < fractions[i - 1]))
+        throw new java.lang.IllegalArgumentException("bad fractions");
+      int target = (int) Math.round(fractions[i] * sites);
+      while (perc.numberOfOpenSites() < target)
+        perc.open(order.next());
+      profile[i] = stats.snapshot();
+    }
+    return profile;
+  }
+
+  // number of experiments performed
+  public int trials() {
+    return simRuns;
   }
 
   // sample mean of percolation threshold
   public double mean() {
+    if (estimator != null)
+      return estimator.mean();
     return (StdStats.mean(simResults));
   }
 
@@ -74,6 +370,8 @@ public class PercolationStats {
   public double stddev() {
     if (simRuns == 1)
       return Double.NaN;
+    else if (estimator != null)
+      return estimator.stddev();
     else
     return (StdStats.stddev(simResults));
   }
@@ -88,13 +386,60 @@ public class PercolationStats {
     return (mean() + (1.96 * stddev()) / Math.sqrt(simRuns));
   }
 
+  // parse N or lattice:N
+  static Lattice parseLattice(String arg) {
+    int colon = arg.indexOf(':');
+    int N = Integer.parseInt(arg.substring(colon + 1));
+    String type = (colon < 0) ? "square" : arg.substring(0, colon);
+    if (type.equals("square"))
+      return new SquareLattice(N);
+    if (type.equals("cubic"))
+      return new CubicLattice(N);
+    if (type.equals("triangular"))
+      return new TriangularLattice(N);
+    if (type.equals("hexagonal"))
+      return new HexagonalLattice(N);
+    throw new java.lang.IllegalArgumentException("unknown lattice " + type);
+  }
+
   // test client
   public static void main(String[] args) {
     
-    int N = Integer.parseInt(args[0]);
-    int T = Integer.parseInt(args[1]);
+    // N, or lattice:N for square, cubic, triangular or hexagonal lattices
+    Lattice lattice = parseLattice(args[0]);
     
-    PercolationStats ps = new PercolationStats(N, T);
+    // optional thread count and master seed
+    PercolationStats ps;
+    if (args[1].equals("-width")) {
+      // N -width eps [threads [seed [budget in ms]]]
+      double width = Double.parseDouble(args[2]);
+      int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+      long seed = args.length > 4 ? Long.parseLong(args[4]) : masterSeed();
+      long budget = args.length > 5 ? Long.parseLong(args[5]) : 0;
+      ps = new PercolationStats(lattice, width, budget, seed, threads);
+      System.out.println("trials                  = " + ps.trials());
+    } else if (args.length > 5) {
+      // N T threads seed strategy checkpoint
+      int T = Integer.parseInt(args[1]);
+      int threads = Integer.parseInt(args[2]);
+      long seed = Long.parseLong(args[3]);
+      try {
+        ps = new PercolationStats(lattice, T, seed, threads,
+            Strategy.valueOf(args[4]), new File(args[5]));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else if (args.length > 2) {
+      // N T threads [seed [INCREMENTAL | BISECTION]]
+      int T = Integer.parseInt(args[1]);
+      int threads = Integer.parseInt(args[2]);
+      long seed = args.length > 3 ? Long.parseLong(args[3]) : masterSeed();
+      Strategy strategy = args.length > 4 ? Strategy.valueOf(args[4])
+          : Strategy.INCREMENTAL;
+      ps = new PercolationStats(lattice, T, seed, threads, strategy);
+    } else
+      ps = new PercolationStats(lattice, Integer.parseInt(args[1]),
+          masterSeed(), 1, Strategy.INCREMENTAL);
     
     System.out.println("mean                    = " + ps.mean());
     System.out.println("stddev                  = " + ps.stddev());
@@ -0,0 +1,189 @@
+/*
+ * PercolationSweep.java
+ *
+ * Runs PercolationStats for a list of lattice sizes in one JVM, e.g.
+ * N = 16, 32, ..., 8192 for finite-size scaling, so the JIT warms up once
+ * instead of once per size.
+ *
+ * All trials of all sizes go to one fixed thread pool in batches of a few
+ * trials, largest lattice first, so the long trials start early and the
+ * short ones fill up the threads at the end. Each worker thread keeps one
+ * PercolationEngine and one SitePermutation sized for the largest lattice
+ * and resets them for every trial, so no grid is allocated after warmup.
+ *
+ * Trial i of a size draws its sites from PercolationStats.trialSeed(seed, i),
+ * so every row of the sweep equals PercolationStats(lattice, T, seed, ...)
+ * for the same seed.
+ *
+ */
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class PercolationSweep {
+
+  // trials per task submitted to the pool
+  private static final int TRIALS_PER_TASK = 4;
+
+  private final Lattice[] lattices;        // the lattices, in input order
+  private final PercolationStats[] stats;  // statistics of each lattice
+
+  // per-thread buffers of a sweep, sized for its largest lattice
+  private static class Worker {
+    private final PercolationEngine perc;
+    private final SitePermutation order;
+
+    Worker(Lattice largest) {
+      perc = new PercolationEngine(largest, false);
+      order = new SitePermutation(largest.size(), new SplittableRandom(0));
+    }
+
+    // trial i of the master seed on the given lattice, as a fraction of sites
+    double trial(Lattice lattice, long seed, int i) {
+      perc.reset(lattice);
+      order.restart(lattice.size(),
+          new SplittableRandom(PercolationStats.trialSeed(seed, i)));
+      while (!perc.percolates())
+        perc.open(order.next());
+      return perc.numberOfOpenSites() / (double) lattice.size();
+    }
+  }
+
+  /**
+   * Performs trials[k] independent experiments on lattices[k] for every k,
+   * sharing one pool of the given number of threads.
+   *
+   * @param lattices
+   *          the lattices
+   * @param trials
+   *          the number of experiments per lattice
+   * @param seed
+   *          the master seed of every lattice
+   * @param threads
+   *          the number of worker threads
+   * @throws java.lang.IllegalArgumentException
+   *           if an argument is out of range
+   */
+  public PercolationSweep(Lattice[] lattices, int[] trials, long seed,
+      int threads) {
+    if (lattices == null || trials == null)
+      throw new java.lang.NullPointerException();
+    if (lattices.length == 0 || lattices.length != trials.length
+        || threads <= 0)
+      throw new java.lang.IllegalArgumentException();
+    for (int k = 0; k < lattices.length; k++)
+      if (lattices[k] == null || trials[k] <= 0)
+        throw new java.lang.IllegalArgumentException();
+
+    this.lattices = lattices.clone();
+    stats = new PercolationStats[lattices.length];
+
+    // schedule the lattices largest first
+    Integer[] bySize = new Integer[lattices.length];
+    for (int k = 0; k < bySize.length; k++)
+      bySize[k] = k;
+    Arrays.sort(bySize, Comparator.comparingInt((Integer k) ->
+        lattices[k].size()).reversed());
+    final Lattice largest = lattices[bySize[0]];
+    final ThreadLocal<Worker> workers =
+        ThreadLocal.withInitial(() -> new Worker(largest));
+
+    double[][] results = new double[lattices.length][];
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      int tasks = 0;
+      for (int k = 0; k < lattices.length; k++)
+        tasks += (trials[k] + TRIALS_PER_TASK - 1) / TRIALS_PER_TASK;
+      Future<?>[] done = new Future<?>[tasks];
+      int t = 0;
+      for (int k : bySize) {
+        final Lattice lattice = lattices[k];
+        final double[] r = new double[trials[k]];
+        results[k] = r;
+        for (int lo = 0; lo < r.length; lo += TRIALS_PER_TASK) {
+          final int from = lo;
+          final int to = Math.min(r.length, lo + TRIALS_PER_TASK);
+          done[t++] = pool.submit(() -> {
+            Worker w = workers.get();
+            for (int i = from; i < to; i++)
+              r[i] = w.trial(lattice, seed, i);
+          });
+        }
+      }
+      for (Future<?> f : done)
+        f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new java.lang.IllegalStateException("interrupted", e);
+    } catch (ExecutionException e) {
+      throw new java.lang.IllegalStateException("trial failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    for (int k = 0; k < lattices.length; k++)
+      stats[k] = new PercolationStats(results[k]);
+  }
+
+  /**
+   * Returns the number of lattices in the sweep.
+   *
+   * @return the number of lattices
+   */
+  public int size() {
+    return lattices.length;
+  }
+
+  /**
+   * Returns the k-th lattice of the sweep, in input order.
+   *
+   * @param k
+   *          the index of the lattice
+   * @return the lattice
+   */
+  public Lattice lattice(int k) {
+    return lattices[k];
+  }
+
+  /**
+   * Returns the statistics of the k-th lattice of the sweep.
+   *
+   * @param k
+   *          the index of the lattice
+   * @return the statistics of its experiments
+   */
+  public PercolationStats stats(int k) {
+    return stats[k];
+  }
+
+  // test client: threads seed N T [N T ...], N may be lattice:N as in
+  // PercolationStats; prints a CSV row per lattice
+  public static void main(String[] args) {
+    int threads = Integer.parseInt(args[0]);
+    long seed = Long.parseLong(args[1]);
+    int n = (args.length - 2) / 2;
+    Lattice[] lattices = new Lattice[n];
+    int[] trials = new int[n];
+    for (int k = 0; k < n; k++) {
+      lattices[k] = PercolationStats.parseLattice(args[2 + 2 * k]);
+      trials[k] = Integer.parseInt(args[3 + 2 * k]);
+    }
+
+    PercolationSweep sweep = new PercolationSweep(lattices, trials, seed,
+        threads);
+    StdOut.println("lattice,sites,T,mean,stddev,confidenceLo,confidenceHi");
+    for (int k = 0; k < sweep.size(); k++) {
+      PercolationStats ps = sweep.stats(k);
+      StdOut.println(sweep.lattice(k) + "," + sweep.lattice(k).size() + ","
+          + ps.trials() + "," + ps.mean() + "," + ps.stddev() + ","
+          + ps.confidenceLo() + "," + ps.confidenceHi());
+    }
+  }
+}
@@ -12,7 +12,8 @@
  *
  * After each site is opened, it draws full sites in light blue, open sites
  * (that aren't full) in white, and blocked sites in black, with with site (1,
- * 1) in the upper left-hand corner
+ * 1) in the upper left-hand corner. The state is read one row at a time as
+ * open/full bitsets instead of calling isFull and isOpen per site.
  ******************************************************************************/
 
 import java.awt.Font;
@@ -37,16 +38,21 @@ public class PercolationVisualizer
 
     // draw N-by-N grid
     int opened = 0;
+    long[] openRow = new long[perc.wordsPerRows(1)];
+    long[] fullRow = new long[openRow.length];
     for (int row = 1; row <= N; row++)
     {
+      perc.copyOpenRows(row, row, openRow);
+      perc.copyFullRows(row, row, fullRow);
       for (int col = 1; col <= N; col++)
       {
-        if (perc.isFull(row, col))
+        long bit = 1L << (col - 1);
+        if ((fullRow[(col - 1) >>> 6] & bit) != 0)
         {
           StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
           opened++;
         }
-        else if (perc.isOpen(row, col))
+        else if ((openRow[(col - 1) >>> 6] & bit) != 0)
         {
           StdDraw.setPenColor(StdDraw.WHITE);
           opened++;
@@ -77,7 +83,7 @@ public class PercolationVisualizer
     StdDraw.show(0);
 
     // repeatedly read in sites to open and draw resulting system
-    Percolation perc = new Percolation(N);
+    Percolation perc = new Percolation(N, true);
     draw(perc, N);
     StdDraw.show(DELAY);
     while (!in.isEmpty())
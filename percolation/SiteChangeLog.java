@@ -0,0 +1,70 @@
+/*
+ * SiteChangeLog.java
+ *
+ * Growable list of the sites whose state changed, filled in by a
+ * PercolationEngine: a site is added when it is opened and, if the engine
+ * keeps the full bitset, again when it becomes full. A renderer drains the
+ * log once per frame and repaints only the sites in it, reading their
+ * current state from the engine, so a site that appears twice is simply
+ * painted twice.
+ *
+ */
+
+import java.util.Arrays;
+
+public class SiteChangeLog {
+
+  private int[] sites;  // changed sites in the order of the changes
+  private int n;        // number of changed sites
+
+  /**
+   * Creates an empty log.
+   */
+  public SiteChangeLog() {
+    sites = new int[16];
+    n = 0;
+  }
+
+  /**
+   * Adds a changed site.
+   *
+   * @param site
+   *          the linear index of the site
+   */
+  public void add(int site) {
+    if (n == sites.length)
+      sites = Arrays.copyOf(sites, 2 * n);
+    sites[n++] = site;
+  }
+
+  /**
+   * Returns the number of changes since the last clear.
+   *
+   * @return the number of changed sites
+   */
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Returns the k-th changed site.
+   *
+   * @param k
+   *          index in [0, size())
+   * @return the linear index of the site
+   * @throws java.lang.IndexOutOfBoundsException
+   *           if k is outside [0, size())
+   */
+  public int get(int k) {
+    if (k < 0 || k >= n)
+      throw new java.lang.IndexOutOfBoundsException("k must be in [0, size)");
+    return sites[k];
+  }
+
+  /**
+   * Empties the log, keeping its array.
+   */
+  public void clear() {
+    n = 0;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * SitePermutation.java
+ *
+ * Random opening order for the sites of a percolation system. The order is
+ * a Fisher-Yates shuffle of [0, n) that is carried out lazily, one swap per
+ * site drawn, so a trial that percolates after k sites only pays for k
+ * swaps and never draws a site twice. restart() puts the array back in
+ * identity order (one sequential pass, no allocation), so the order is a
+ * function of the random source alone.
+ *
+ */
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+public class SitePermutation {
+
+  private final int[] perm;      // current arrangement of the sites
+  private int n;                 // number of sites in the order
+  private int next;              // number of sites drawn so far
+  private SplittableRandom rnd;  // random source of the current order
+
+  /**
+   * Creates a random order over the sites [0, n).
+   *
+   * @param n
+   *          the number of sites
+   * @param rnd
+   *          the random source
+   */
+  public SitePermutation(int n, SplittableRandom rnd) {
+    if (n < 0)
+      throw new java.lang.IllegalArgumentException("n must be >= 0");
+    if (rnd == null)
+      throw new java.lang.NullPointerException("Null random source");
+    perm = new int[n];
+    for (int i = 0; i < n; i++)
+      perm[i] = i;
+    this.n = n;
+    this.rnd = rnd;
+    next = 0;
+  }
+
+  /**
+   * Starts a new, independent order drawn from the given random source.
+   *
+   * @param rnd
+   *          the random source
+   */
+  public void restart(SplittableRandom rnd) {
+    restart(n, rnd);
+  }
+
+  /**
+   * Starts a new, independent order over the sites [0, n) drawn from the
+   * given random source; n may be smaller than the size the permutation
+   * was created with, so one array can serve lattices of several sizes.
+   *
+   * @param n
+   *          the number of sites
+   * @param rnd
+   *          the random source
+   * @throws java.lang.IllegalArgumentException
+   *           if n is larger than the capacity
+   */
+  public void restart(int n, SplittableRandom rnd) {
+    if (rnd == null)
+      throw new java.lang.NullPointerException("Null random source");
+    if (n < 0 || n > perm.length)
+      throw new java.lang.IllegalArgumentException("n exceeds the capacity");
+    for (int i = 0; i < n; i++)
+      perm[i] = i;
+    this.n = n;
+    this.rnd = rnd;
+    next = 0;
+  }
+
+  /**
+   * Returns the number of sites.
+   *
+   * @return the number of sites
+   */
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Are there sites left to draw?
+   *
+   * @return <tt>true</tt> if not every site has been drawn
+   */
+  public boolean hasNext() {
+    return next < n;
+  }
+
+  /**
+   * Returns the next site of the order.
+   *
+   * @return the next site
+   * @throws java.util.NoSuchElementException
+   *           if every site has been drawn
+   */
+  public int next() {
+    if (!hasNext())
+      throw new NoSuchElementException("No sites left");
+    // swap a random site of the undrawn tail into position next
+    int r = next + rnd.nextInt(n - next);
+    int site = perm[r];
+    perm[r] = perm[next];
+    perm[next++] = site;
+    return site;
+  }
+
+  /**
+   * Returns the k-th site of the current order (0-based), drawing the
+   * sites up to it if they have not been drawn yet.
+   *
+   * @param k
+   *          the position in the order
+   * @return the k-th site
+   * @throws java.lang.IndexOutOfBoundsException
+   *           if k is not in [0, n)
+   */
+  public int get(int k) {
+    if (k < 0 || k >= n)
+      throw new java.lang.IndexOutOfBoundsException("k must be in [0,n)");
+    while (next <= k)
+      next();
+    return perm[k];
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+    SitePermutation p = new SitePermutation(10, new SplittableRandom(1));
+    while (p.hasNext())
+      System.out.print(p.next() + " ");
+    System.out.println();
+    p.restart(new SplittableRandom(2));
+    for (int i = 0; i < 3; i++)
+      System.out.print(p.next() + " ");
+    System.out.println();
+  }
+}
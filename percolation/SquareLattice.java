@@ -0,0 +1,71 @@
+/*
+ * SquareLattice.java
+ *
+ * N-by-N square lattice, site = row * N + col, each site linked to its left,
+ * right, upper and lower neighbor. The top is row 0, the bottom row N - 1.
+ * Site percolation threshold about 0.5927.
+ *
+ */
+
+public class SquareLattice implements Lattice {
+
+  private final int dim;   // dimension of grid
+
+  /**
+   * Creates an N-by-N square lattice.
+   *
+   * @param N
+   *          the dimension of the lattice
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 46340]
+   */
+  public SquareLattice(int N) {
+    if (N < 1 || N > 46340)
+      throw new java.lang.IllegalArgumentException("N must be in [1, 46340]");
+    dim = N;
+  }
+
+  /**
+   * Returns the dimension N of the lattice.
+   *
+   * @return the dimension of the lattice
+   */
+  public int dimension() {
+    return dim;
+  }
+
+  public int size() {
+    return dim * dim;
+  }
+
+  public int degree() {
+    return 4;
+  }
+
+  public int neighbors(int site, int[] buf) {
+    int row = site / dim;
+    int col = site - row * dim;
+    int n = 0;
+    if (col > 0)
+      buf[n++] = site - 1;
+    if (col < dim - 1)
+      buf[n++] = site + 1;
+    if (row > 0)
+      buf[n++] = site - dim;
+    if (row < dim - 1)
+      buf[n++] = site + dim;
+    return n;
+  }
+
+  public boolean isTop(int site) {
+    return site < dim;
+  }
+
+  public boolean isBottom(int site) {
+    return site >= dim * (dim - 1);
+  }
+
+  public String toString() {
+    return "square " + dim + "x" + dim;
+  }
+}
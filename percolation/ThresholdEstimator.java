@@ -0,0 +1,117 @@
+/*
+ * ThresholdEstimator.java
+ *
+ * Online estimator of the percolation threshold. Trial results are folded
+ * in one at a time with Welford's update, so the running mean, standard
+ * deviation and 95% confidence interval are available after every trial
+ * using O(1) memory, no matter how many trials are run.
+ *
+ */
+
+public class ThresholdEstimator {
+
+  private static final double CONFIDENCE_95 = 1.96;
+
+  private long   count;  // number of results
+  private double mean;   // running mean
+  private double m2;     // sum of squared deviations from the mean
+
+  /**
+   * Initializes an empty estimator.
+   */
+  public ThresholdEstimator() {
+    count = 0;
+    mean = 0.0;
+    m2 = 0.0;
+  }
+
+  /**
+   * Adds the result of one trial.
+   *
+   * @param x
+   *          the fraction of open sites at which the trial percolated
+   */
+  public void add(double x) {
+    count++;
+    double delta = x - mean;
+    mean += delta / count;
+    m2 += delta * (x - mean);
+  }
+
+  /**
+   * Returns the number of results added so far.
+   *
+   * @return the number of results
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Returns the sample mean, NaN if there are no results.
+   *
+   * @return the sample mean
+   */
+  public double mean() {
+    if (count == 0)
+      return Double.NaN;
+    return mean;
+  }
+
+  /**
+   * Returns the sample standard deviation, NaN if there are less than two
+   * results.
+   *
+   * @return the sample standard deviation
+   */
+  public double stddev() {
+    if (count < 2)
+      return Double.NaN;
+    return Math.sqrt(m2 / (count - 1));
+  }
+
+  // half width of the 95% confidence interval
+  private double halfWidth() {
+    return CONFIDENCE_95 * stddev() / Math.sqrt(count);
+  }
+
+  /**
+   * Returns the low end point of the 95% confidence interval.
+   *
+   * @return the low end point of the confidence interval
+   */
+  public double confidenceLo() {
+    return mean() - halfWidth();
+  }
+
+  /**
+   * Returns the high end point of the 95% confidence interval.
+   *
+   * @return the high end point of the confidence interval
+   */
+  public double confidenceHi() {
+    return mean() + halfWidth();
+  }
+
+  /**
+   * Returns the width of the 95% confidence interval, NaN if there are less
+   * than two results.
+   *
+   * @return the width of the confidence interval
+   */
+  public double width() {
+    return 2 * halfWidth();
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+    ThresholdEstimator e = new ThresholdEstimator();
+    double[] x = { 0.59, 0.60, 0.58, 0.61, 0.59 };
+    for (int i = 0; i < x.length; i++)
+      e.add(x[i]);
+    System.out.println("mean   = " + e.mean());
+    System.out.println("stddev = " + e.stddev());
+    System.out.println("95% confidence interval = " + e.confidenceLo() + ", "
+        + e.confidenceHi());
+  }
+}
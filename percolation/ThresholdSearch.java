@@ -0,0 +1,178 @@
+/*
+ * ThresholdSearch.java
+ *
+ * Finds the number of open sites at which a system first percolates by
+ * binary search over a fixed opening order, instead of opening the sites
+ * one by one. Each probe k opens exactly the first k sites of the order (the
+ * open bitset is moved from the previous probe by setting or clearing the
+ * sites in between) and runs a fresh breadth-first search from the open
+ * top sites, which is linear in the number of sites. A trial on n sites is
+ * O(n log n) with plain array scans and no union-find.
+ *
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class ThresholdSearch {
+
+  private final Lattice lattice;  // sites and their neighbors
+  private final int sites;        // number of sites
+  private final int[] tops;       // the top sites of the lattice
+  private final int[] adj;        // neighbors of the current site
+  private final long[] open;      // bitset of the first k sites of the order
+  private final long[] seen;      // bitset of the sites reached by the search
+  private final int[] queue;      // breadth-first search queue
+  private int k;                  // number of sites open in the bitset
+
+  /**
+   * Creates the search buffers for an N-by-N grid.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 46340]
+   */
+  public ThresholdSearch(int N) {
+    this(new SquareLattice(N));
+  }
+
+  /**
+   * Creates the search buffers for the given lattice.
+   *
+   * @param lattice
+   *          the lattice
+   */
+  public ThresholdSearch(Lattice lattice) {
+    if (lattice == null)
+      throw new java.lang.NullPointerException("Null lattice");
+    this.lattice = lattice;
+    sites = lattice.size();
+    adj = new int[lattice.degree()];
+    int n = 0;
+    for (int p = 0; p < sites; p++)
+      if (lattice.isTop(p))
+        n++;
+    tops = new int[n];
+    n = 0;
+    for (int p = 0; p < sites; p++)
+      if (lattice.isTop(p))
+        tops[n++] = p;
+    open = new long[(sites + 63) >>> 6];
+    seen = new long[open.length];
+    queue = new int[sites];
+    k = 0;
+  }
+
+  /**
+   * Returns the smallest k such that opening the first k sites of the order
+   * makes the system percolate.
+   *
+   * @param order
+   *          an opening order over all sites of the lattice
+   * @return the number of open sites at the percolation threshold
+   */
+  public int threshold(SitePermutation order) {
+    if (order.size() != sites)
+      throw new java.lang.IllegalArgumentException("order size is not size");
+
+    // start every search from an empty grid
+    Arrays.fill(open, 0L);
+    k = 0;
+
+    // invariant: lo sites do not percolate, hi sites do
+    int lo = 0;
+    int hi = sites;
+    while (hi - lo > 1) {
+      int mid = (lo + hi) >>> 1;
+      moveTo(order, mid);
+      if (percolates())
+        hi = mid;
+      else
+        lo = mid;
+    }
+    return hi;
+  }
+
+  // open exactly the first target sites of the order
+  private void moveTo(SitePermutation order, int target) {
+    for (; k < target; k++) {
+      int p = order.get(k);
+      open[p >>> 6] |= 1L << p;
+    }
+    for (; k > target; k--) {
+      int p = order.get(k - 1);
+      open[p >>> 6] &= ~(1L << p);
+    }
+  }
+
+  // is bit i of the bitset set?
+  private static boolean get(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // breadth-first search from the open top sites, true on reaching the
+  // bottom
+  private boolean percolates() {
+    Arrays.fill(seen, 0L);
+    int head = 0;
+    int tail = 0;
+    for (int t = 0; t < tops.length; t++)
+      tail = visit(tops[t], tail);
+    while (head < tail) {
+      int p = queue[head++];
+      if (lattice.isBottom(p))
+        return true;
+      int n = lattice.neighbors(p, adj);
+      for (int i = 0; i < n; i++)
+        tail = visit(adj[i], tail);
+    }
+    return false;
+  }
+
+  // enqueue site p if it is open and not yet reached
+  private int visit(int p, int tail) {
+    if (!get(open, p) || get(seen, p))
+      return tail;
+    seen[p >>> 6] |= 1L << p;
+    queue[tail] = p;
+    return tail + 1;
+  }
+
+  // benchmark: time per trial of the incremental engine and of the binary
+  // search, for N = 64, 128, ... up to maxN (default 8192)
+  public static void main(String[] args) {
+    int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 8192;
+    int trials = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+    System.out.println("N\tincremental ms\tbisection ms\tthreshold");
+    for (int N = 64; N <= maxN; N *= 2) {
+      long incremental = 0;
+      long bisection = 0;
+      double sum = 0;
+      ThresholdSearch search = new ThresholdSearch(N);
+      SitePermutation order = new SitePermutation(N * N,
+          new SplittableRandom(0));
+      for (int t = 0; t < trials; t++) {
+        order.restart(new SplittableRandom(t));
+        long start = System.nanoTime();
+        PercolationEngine perc = new PercolationEngine(N);
+        while (!perc.percolates())
+          perc.open(order.next());
+        incremental += System.nanoTime() - start;
+
+        // the search reads the sites drawn above again, so both
+        // strategies see the same order
+        start = System.nanoTime();
+        int k = search.threshold(order);
+        bisection += System.nanoTime() - start;
+
+        if (k != perc.numberOfOpenSites())
+          throw new java.lang.IllegalStateException("strategies disagree");
+        sum += k / ((double) N * N);
+      }
+      System.out.printf("%d\t%.2f\t%.2f\t%.4f%n", N,
+          incremental / 1e6 / trials, bisection / 1e6 / trials, sum / trials);
+    }
+  }
+}
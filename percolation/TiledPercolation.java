@@ -0,0 +1,292 @@
+/*
+ * TiledPercolation.java
+ *
+ * Percolation test for a single huge N-by-N grid whose open sites are given
+ * up front as a row-major bitset (site = row * N + col, 0-based).
+ *
+ * The grid is cut into horizontal strips. Worker threads label each strip
+ * on its own with a GridUnionFind over the strip's sites, and keep only the
+ * labels of the strip's first and last row. These boundary cells become the
+ * nodes of a small union-find: boundary cells of one strip are joined when
+ * they share a component inside the strip, and the last row of a strip is
+ * joined to the first row of the next one wherever both sites are open.
+ * The first row of the top strip is the top of the system and the last row
+ * of the bottom strip is its bottom.
+ *
+ * Only a few strips are alive at a time, so memory is the open bitset, one
+ * strip per thread and 2N boundary nodes per strip. isFull relabels the
+ * single strip that holds the site.
+ *
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+public class TiledPercolation {
+
+  // sites per strip unless asked otherwise, about 16 MB of union-find
+  private static final int STRIP_SITES = 1 << 22;
+  // golden ratio increment used to spread word indices over seeds
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final int dim;               // dimension of grid
+  private final long[] open;           // bitset of open sites
+  private final int stripRows;         // rows per strip (last may be less)
+  private final int strips;            // number of strips
+  private final GridUnionFind merge;   // boundary nodes of all strips
+  private final boolean sysPerc;       // system percolates
+
+  /**
+   * Labels the grid using all available processors.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @param open
+   *          row-major bitset of the open sites, N * N bits
+   */
+  public TiledPercolation(int N, long[] open) {
+    this(N, open, Runtime.getRuntime().availableProcessors(), 0);
+  }
+
+  /**
+   * Labels the grid with the given number of threads and rows per strip.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @param open
+   *          row-major bitset of the open sites, N * N bits
+   * @param threads
+   *          the number of worker threads
+   * @param rowsPerStrip
+   *          rows per strip, 0 picks strips of about 4M sites
+   * @throws java.lang.IllegalArgumentException
+   *           if an argument is out of range
+   */
+  public TiledPercolation(int N, long[] open, int threads, int rowsPerStrip) {
+    if (N < 1)
+      throw new java.lang.IllegalArgumentException("N must be > 0");
+    if (open == null)
+      throw new java.lang.NullPointerException("Null open bitset");
+    if (open.length < ((long) N * N + 63) >>> 6)
+      throw new java.lang.IllegalArgumentException("open bitset too small");
+    if (threads < 1 || rowsPerStrip < 0)
+      throw new java.lang.IllegalArgumentException();
+
+    dim = N;
+    this.open = open;
+    if (rowsPerStrip == 0)
+      rowsPerStrip = Math.max(1, STRIP_SITES / N);
+    stripRows = Math.min(rowsPerStrip, N);
+    strips = (N + stripRows - 1) / stripRows;
+    if ((long) stripRows * N > GridUnionFind.MAX_SITES
+        || (long) strips * 2 * N > GridUnionFind.MAX_SITES)
+      throw new java.lang.IllegalArgumentException("strips too large");
+
+    // label the strips in parallel, each fills in its own boundary nodes
+    merge = new GridUnionFind(strips * 2 * N);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      Future<?>[] done = new Future<?>[strips];
+      for (int s = 0; s < strips; s++) {
+        final int strip = s;
+        done[s] = pool.submit(() -> labelStrip(strip));
+      }
+      for (int s = 0; s < strips; s++)
+        done[s].get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new java.lang.IllegalStateException("interrupted", e);
+    } catch (ExecutionException e) {
+      throw new java.lang.IllegalStateException("strip failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    // stitch neighbouring strips together and test top against bottom
+    for (int s = 0; s + 1 < strips; s++) {
+      int row = (s + 1) * stripRows;
+      for (int col = 0; col < dim; col++)
+        if (isOpenSite(row - 1, col) && isOpenSite(row, col))
+          merge.union(node(s, true, col), node(s + 1, false, col));
+    }
+    boolean perc = false;
+    for (int col = 0; col < dim && !perc; col++)
+      if (isOpenSite(N - 1, col))
+        perc = merge.flags(merge.find(node(strips - 1, true, col)))
+            == (GridUnionFind.TOP | GridUnionFind.BOTTOM);
+    sysPerc = perc;
+  }
+
+  // boundary node of a strip: first row (bottom == false) or last row
+  private int node(int strip, boolean bottom, int col) {
+    return (2 * strip + (bottom ? 1 : 0)) * dim + col;
+  }
+
+  // is site (row, col) open, 0-based
+  private boolean isOpenSite(int row, int col) {
+    long p = (long) row * dim + col;
+    return (open[(int) (p >>> 6)] & (1L << p)) != 0;
+  }
+
+  // first and one past the last row of a strip
+  private int firstRow(int strip) {
+    return strip * stripRows;
+  }
+
+  private int endRow(int strip) {
+    return Math.min(dim, (strip + 1) * stripRows);
+  }
+
+  // union-find over the sites of a strip, site (r, c) at (r - first) * N + c
+  private GridUnionFind label(int strip) {
+    int r0 = firstRow(strip);
+    int rows = endRow(strip) - r0;
+    GridUnionFind uf = new GridUnionFind(rows * dim);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < dim; c++) {
+        if (!isOpenSite(r0 + r, c))
+          continue;
+        int p = r * dim + c;
+        if (c > 0 && isOpenSite(r0 + r, c - 1))
+          uf.union(p, p - 1);
+        if (r > 0 && isOpenSite(r0 + r - 1, c))
+          uf.union(p, p - dim);
+      }
+    }
+    return uf;
+  }
+
+  // label a strip and join its boundary nodes that share a component; a
+  // strip only touches its own nodes, so strips need no locking
+  private void labelStrip(int strip) {
+    GridUnionFind uf = label(strip);
+    int rows = endRow(strip) - firstRow(strip);
+    int last = (rows - 1) * dim;
+
+    // the first boundary node seen for each strip root, by root index
+    int[] first = new int[uf.capacity()];
+    boolean[] seen = new boolean[uf.capacity()];
+    for (int side = 0; side < 2; side++) {
+      int base = (side == 0) ? 0 : last;
+      for (int c = 0; c < dim; c++) {
+        if (!isOpenSite(firstRow(strip) + base / dim, c))
+          continue;
+        int root = uf.find(base + c);
+        int n = node(strip, side == 1, c);
+        if (strip == 0 && side == 0)
+          merge.addFlags(merge.find(n), GridUnionFind.TOP);
+        if (strip == strips - 1 && side == 1)
+          merge.addFlags(merge.find(n), GridUnionFind.BOTTOM);
+        if (seen[root])
+          merge.union(first[root], n);
+        else {
+          seen[root] = true;
+          first[root] = n;
+        }
+      }
+    }
+  }
+
+  /**
+   * Does the system percolate?
+   *
+   * @return <tt>true</tt> if an open path joins the top and bottom rows
+   */
+  public boolean percolates() {
+    return sysPerc;
+  }
+
+  /**
+   * Is site (row i, column j) full? Relabels the strip holding the site.
+   *
+   * @param i
+   *          row in [1, N]
+   * @param j
+   *          column in [1, N]
+   * @return <tt>true</tt> if the site is connected to the top row
+   */
+  public boolean isFull(int i, int j) {
+    if ((i < 1) || (i > dim) || (j < 1) || (j > dim))
+      throw new java.lang.IndexOutOfBoundsException("i, j must be in [1,N]");
+    int row = i - 1;
+    int col = j - 1;
+    if (!isOpenSite(row, col))
+      return false;
+
+    int strip = row / stripRows;
+    int r0 = firstRow(strip);
+    int last = endRow(strip) - 1;
+    GridUnionFind uf = label(strip);
+    int root = uf.find((row - r0) * dim + col);
+
+    // any boundary cell in the same strip component leads to the answer
+    for (int c = 0; c < dim; c++) {
+      if (isOpenSite(r0, c) && uf.find(c) == root)
+        return full(node(strip, false, c));
+      if (isOpenSite(last, c) && uf.find((last - r0) * dim + c) == root)
+        return full(node(strip, true, c));
+    }
+    return false;
+  }
+
+  // is the boundary node connected to the top?
+  private boolean full(int n) {
+    return (merge.flags(merge.find(n)) & GridUnionFind.TOP) != 0;
+  }
+
+  /**
+   * Returns a row-major bitset of an N-by-N grid where each site is open
+   * with probability p, filled in parallel from the given seed.
+   *
+   * @param N
+   *          the dimension of the grid
+   * @param p
+   *          the probability that a site is open
+   * @param seed
+   *          the seed of the random field
+   * @return the open bitset
+   */
+  public static long[] randomField(int N, final double p, final long seed) {
+    final long sites = (long) N * N;
+    final long[] bits = new long[(int) ((sites + 63) >>> 6)];
+    // every word gets its own generator, so the field does not depend on
+    // how the words are spread over threads; the seed of word w is mixed
+    // as in PercolationStats.trialSeed, since seed + w * GOLDEN_GAMMA
+    // itself would start word w + 1 one draw into the sequence of word w
+    IntStream.range(0, bits.length).parallel().forEach(w -> {
+      SplittableRandom rnd = new SplittableRandom(
+          new SplittableRandom(seed + w * GOLDEN_GAMMA).nextLong());
+      long word = 0;
+      int n = (int) Math.min(64, sites - ((long) w << 6));
+      for (int b = 0; b < n; b++)
+        if (rnd.nextDouble() < p)
+          word |= 1L << b;
+      bits[w] = word;
+    });
+    return bits;
+  }
+
+  // test client: N p [threads [seed]]
+  public static void main(String[] args) {
+    int N = Integer.parseInt(args[0]);
+    double p = Double.parseDouble(args[1]);
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+
+    long start = System.nanoTime();
+    long[] field = randomField(N, p, seed);
+    long mid = System.nanoTime();
+    TiledPercolation tp = new TiledPercolation(N, field, threads, 0);
+    long end = System.nanoTime();
+
+    System.out.println("field      = " + (mid - start) / 1000000 + " ms");
+    System.out.println("labelling  = " + (end - mid) / 1000000 + " ms");
+    System.out.println("percolates = " + tp.percolates());
+    System.out.println("(1, 1) full = " + tp.isFull(1, 1));
+  }
+}
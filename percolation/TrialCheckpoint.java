@@ -0,0 +1,203 @@
+/*
+ * TrialCheckpoint.java
+ *
+ * Append-only binary checkpoint of a PercolationStats campaign, so that a
+ * long run can be resumed after the JVM stops. The file starts with a
+ * header and is followed by one fixed-size record per finished trial:
+ *
+ *   header:  int magic, int version, long master seed, int sites,
+ *            int length, length bytes of the lattice description (UTF-8)
+ *   record:  int trial index, double result
+ *
+ * Records are written through a FileChannel as soon as a trial finishes,
+ * in whatever order the threads finish them. On opening an existing file
+ * the header must match the campaign, the complete records are loaded and
+ * a partial record left by a crash is cut off. Since every trial is seeded
+ * from the master seed and its index only, skipping the loaded trials
+ * gives the same statistics as an uninterrupted run.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TrialCheckpoint implements Closeable {
+
+  private static final int MAGIC   = 0x50455243;  // "PERC"
+  private static final int VERSION = 1;
+  private static final int RECORD  = 4 + 8;       // trial index, result
+
+  private final FileChannel channel;   // the checkpoint file
+  private final ByteBuffer record;     // buffer of one record
+  private double[] results;            // loaded and recorded results
+  private boolean[] done;              // trials with a result
+  private int completed;               // number of trials with a result
+
+  /**
+   * Opens or creates the checkpoint of a campaign.
+   *
+   * @param file
+   *          the checkpoint file
+   * @param seed
+   *          the master seed of the campaign
+   * @param lattice
+   *          the lattice of the campaign
+   * @throws java.io.IOException
+   *           if the file cannot be read or written, or belongs to another
+   *           campaign
+   */
+  public TrialCheckpoint(File file, long seed, Lattice lattice)
+      throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    record = ByteBuffer.allocate(RECORD);
+    results = new double[16];
+    done = new boolean[16];
+    completed = 0;
+
+    try {
+      ByteBuffer header = header(seed, lattice);
+      if (channel.size() == 0) {
+        while (header.hasRemaining())
+          channel.write(header);
+      } else
+        load(header);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  // header bytes of a campaign
+  private static ByteBuffer header(long seed, Lattice lattice) {
+    byte[] desc = lattice.toString().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 4 + 4 + desc.length);
+    header.putInt(MAGIC).putInt(VERSION).putLong(seed);
+    header.putInt(lattice.size()).putInt(desc.length).put(desc);
+    header.flip();
+    return header;
+  }
+
+  // check the header, load the complete records and cut off a partial one
+  private void load(ByteBuffer expected) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(expected.remaining());
+    readFully(header, 0);
+    if (!header.equals(expected))
+      throw new IOException("checkpoint belongs to another campaign");
+
+    long pos = expected.limit();
+    long end = channel.size();
+    ByteBuffer buf = ByteBuffer.allocate(RECORD * 1024);
+    while (end - pos >= RECORD) {
+      buf.clear();
+      buf.limit((int) Math.min(buf.capacity(), (end - pos) / RECORD * RECORD));
+      readFully(buf, pos);
+      pos += buf.limit();
+      while (buf.hasRemaining())
+        put(buf.getInt(), buf.getDouble());
+    }
+    channel.truncate(pos);
+    channel.position(pos);
+  }
+
+  // read until buf is full, starting at the given file position
+  private void readFully(ByteBuffer buf, long pos) throws IOException {
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, pos);
+      if (n < 0)
+        throw new IOException("truncated checkpoint");
+      pos += n;
+    }
+    buf.flip();
+  }
+
+  // remember the result of a trial
+  private void put(int trial, double result) {
+    if (trial < 0)
+      throw new java.lang.IllegalArgumentException("bad trial index");
+    if (trial >= done.length) {
+      int n = Math.max(2 * done.length, trial + 1);
+      results = Arrays.copyOf(results, n);
+      done = Arrays.copyOf(done, n);
+    }
+    if (!done[trial])
+      completed++;
+    done[trial] = true;
+    results[trial] = result;
+  }
+
+  /**
+   * Has the trial a recorded result?
+   *
+   * @param trial
+   *          the trial index
+   * @return <tt>true</tt> if the trial is done
+   */
+  public synchronized boolean isDone(int trial) {
+    return trial >= 0 && trial < done.length && done[trial];
+  }
+
+  /**
+   * Returns the recorded result of a trial.
+   *
+   * @param trial
+   *          the trial index
+   * @return the result of the trial
+   * @throws java.util.NoSuchElementException
+   *           if the trial is not done
+   */
+  public synchronized double result(int trial) {
+    if (!isDone(trial))
+      throw new java.util.NoSuchElementException("trial " + trial);
+    return results[trial];
+  }
+
+  /**
+   * Returns the number of trials with a result.
+   *
+   * @return the number of completed trials
+   */
+  public synchronized int completed() {
+    return completed;
+  }
+
+  /**
+   * Appends the result of a trial to the file.
+   *
+   * @param trial
+   *          the trial index
+   * @param result
+   *          the result of the trial
+   * @throws java.io.IOException
+   *           if the record cannot be written
+   */
+  public synchronized void record(int trial, double result)
+      throws IOException {
+    put(trial, result);
+    record.clear();
+    record.putInt(trial).putDouble(result);
+    record.flip();
+    while (record.hasRemaining())
+      channel.write(record);
+  }
+
+  /**
+   * Forces the records to disk and closes the file.
+   *
+   * @throws java.io.IOException
+   *           if the file cannot be closed
+   */
+  public synchronized void close() throws IOException {
+    try {
+      channel.force(false);
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * TriangularLattice.java
+ *
+ * N-by-N triangular lattice drawn as a rhombus on a square grid, site =
+ * row * N + col. Besides its left, right, upper and lower neighbor each
+ * site is linked along one diagonal, to (row - 1, col + 1) and (row + 1,
+ * col - 1), giving six neighbors. The top is row 0, the bottom row N - 1.
+ * Site percolation threshold 1/2.
+ *
+ */
+
+public class TriangularLattice implements Lattice {
+
+  private final int dim;   // dimension of grid
+
+  /**
+   * Creates an N-by-N triangular lattice.
+   *
+   * @param N
+   *          the dimension of the lattice
+   * @throws java.lang.IllegalArgumentException
+   *           if N is not in [1, 46340]
+   */
+  public TriangularLattice(int N) {
+    if (N < 1 || N > 46340)
+      throw new java.lang.IllegalArgumentException("N must be in [1, 46340]");
+    dim = N;
+  }
+
+  public int size() {
+    return dim * dim;
+  }
+
+  public int degree() {
+    return 6;
+  }
+
+  public int neighbors(int site, int[] buf) {
+    int row = site / dim;
+    int col = site - row * dim;
+    int n = 0;
+    if (col > 0)
+      buf[n++] = site - 1;
+    if (col < dim - 1)
+      buf[n++] = site + 1;
+    if (row > 0) {
+      buf[n++] = site - dim;
+      if (col < dim - 1)
+        buf[n++] = site - dim + 1;
+    }
+    if (row < dim - 1) {
+      buf[n++] = site + dim;
+      if (col > 0)
+        buf[n++] = site + dim - 1;
+    }
+    return n;
+  }
+
+  public boolean isTop(int site) {
+    return site < dim;
+  }
+
+  public boolean isBottom(int site) {
+    return site >= dim * (dim - 1);
+  }
+
+  public String toString() {
+    return "triangular " + dim + "x" + dim;
+  }
+}